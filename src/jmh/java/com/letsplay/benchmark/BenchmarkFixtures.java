@@ -0,0 +1,75 @@
+package com.letsplay.benchmark;
+
+import com.letsplay.model.Product;
+import com.letsplay.model.User;
+import com.letsplay.security.JwtUtil;
+import com.letsplay.security.TokenRevocationList;
+import com.letsplay.security.UserPrincipal;
+import com.letsplay.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the objects under test without a Spring context or a MongoDB, so that the benchmarks only measure the code
+ * itself. The injected fields are set the same way Spring would set them.
+ */
+final class BenchmarkFixtures {
+
+	static final String EMAIL = "benchmark@example.com";
+
+	private BenchmarkFixtures() {
+	}
+
+	static JwtUtil jwtUtil(boolean verifiedCache) {
+		byte[] key = new byte[64];
+		new Random(42).nextBytes(key);
+		JwtUtil jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", Base64.getEncoder().encodeToString(key));
+		ReflectionTestUtils.setField(jwtUtil, "accessTokenTtlSeconds", 900L);
+		ReflectionTestUtils.setField(jwtUtil, "verifiedTokenCache", new VerifiedTokenCache(verifiedCache, 100_000));
+		// The revocation list is only read by JwtUtil, so it needs neither MongoDB nor the invalidation bus.
+		ReflectionTestUtils.setField(jwtUtil, "tokenRevocationList", new TokenRevocationList(null, null, 100_000, 0.001, 60));
+		// The timers stay in, since production pays for them too.
+		ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+		jwtUtil.init();
+		return jwtUtil;
+	}
+
+	static UserPrincipal principal() {
+		return new UserPrincipal(new ObjectId().toHexString(), EMAIL, "", "USER", 0,
+				List.of(new SimpleGrantedAuthority("ROLE_USER")));
+	}
+
+	static User user() {
+		User user = new User();
+		user.setId(new ObjectId().toHexString());
+		user.setName("Benchmark");
+		user.setEmail(EMAIL);
+		user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3b5xQx1m9ZxI4Zf8S0yYgWa");
+		user.setRole("USER");
+		return user;
+	}
+
+	static List<Product> products(int count) {
+		Random random = new Random(42);
+		List<Product> products = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Product product = new Product();
+			product.setId(new ObjectId().toHexString());
+			product.setName("Product " + i);
+			product.setDescription("A product used by the serialization benchmark, number " + i + ".");
+			product.setPrice(Math.round(random.nextDouble() * 10_000) / 100.0);
+			product.setUserId(new ObjectId().toHexString());
+			product.setVersion((long) random.nextInt(10));
+			products.add(product);
+		}
+		return products;
+	}
+}
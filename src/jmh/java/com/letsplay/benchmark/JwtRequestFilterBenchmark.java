@@ -0,0 +1,88 @@
+package com.letsplay.benchmark;
+
+import com.letsplay.model.User;
+import com.letsplay.repository.UserRepository;
+import com.letsplay.security.JwtRequestFilter;
+import com.letsplay.security.JwtUtil;
+import com.letsplay.security.TokenVersionRegistry;
+import com.letsplay.security.UserDetailsServiceImpl;
+import com.letsplay.security.UserLookupCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures JwtRequestFilter on an authenticated request, with a chain that does nothing.
+ * In stateless mode the principal is built from the token; otherwise the user comes from UserLookupCache,
+ * in front of a mocked UserRepository, so the numbers exclude any MongoDB round trip.
+ * The mock request and response are created in each call, as the servlet container would do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+	@Param({"true", "false"})
+	public boolean stateless;
+
+	private final FilterChain chain = (request, response) -> {
+	};
+
+	private JwtRequestFilter filter;
+	private String authorizationHeader;
+
+	@Setup
+	public void setUp() {
+		JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil(true);
+		User user = BenchmarkFixtures.user();
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+		UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
+		ReflectionTestUtils.setField(userDetailsService, "userLookupCache", new UserLookupCache(userRepository, true, 10_000, 60));
+		ReflectionTestUtils.setField(userDetailsService, "meterRegistry", new SimpleMeterRegistry());
+		userDetailsService.init();
+
+		filter = new JwtRequestFilter();
+		ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+		ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+		ReflectionTestUtils.setField(filter, "tokenVersionRegistry", new TokenVersionRegistry(900));
+		ReflectionTestUtils.setField(filter, "stateless", stateless);
+
+		authorizationHeader = "Bearer " + jwtUtil.generateToken(userDetailsService.loadUserByUsername(user.getEmail()));
+	}
+
+	@Benchmark
+	public Authentication doFilter() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+		request.addHeader("Authorization", authorizationHeader);
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return authentication;
+	}
+}
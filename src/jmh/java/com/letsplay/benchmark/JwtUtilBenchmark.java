@@ -0,0 +1,54 @@
+package com.letsplay.benchmark;
+
+import com.letsplay.security.JwtUtil;
+import com.letsplay.security.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JwtUtil.generateToken and JwtUtil.validateToken, with and without the verified token cache.
+ * Without the cache, validateToken parses the token and verifies its HMAC signature on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+	@Param({"true", "false"})
+	public boolean verifiedCache;
+
+	private JwtUtil jwtUtil;
+	private UserPrincipal principal;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		jwtUtil = BenchmarkFixtures.jwtUtil(verifiedCache);
+		principal = BenchmarkFixtures.principal();
+		token = jwtUtil.generateToken(principal);
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtUtil.generateToken(principal);
+	}
+
+	@Benchmark
+	public Boolean validateToken() {
+		return jwtUtil.validateToken(token, principal);
+	}
+}
@@ -0,0 +1,49 @@
+package com.letsplay.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letsplay.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson serialization of Product lists, with an ObjectMapper configured like the one of Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int size;
+
+	private ObjectMapper objectMapper;
+	private List<Product> products;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		products = BenchmarkFixtures.products(size);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(products);
+	}
+}
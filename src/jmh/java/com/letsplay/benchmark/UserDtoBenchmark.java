@@ -0,0 +1,51 @@
+package com.letsplay.benchmark;
+
+import com.letsplay.controller.UserController;
+import com.letsplay.dto.UserDto;
+import com.letsplay.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures UserController.convertToDto. The method is private, so it is called through a constant MethodHandle,
+ * which the JIT compiles to a direct call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDtoBenchmark {
+
+	private static final MethodHandle CONVERT_TO_DTO;
+
+	static {
+		try {
+			CONVERT_TO_DTO = MethodHandles.privateLookupIn(UserController.class, MethodHandles.lookup())
+					.findVirtual(UserController.class, "convertToDto", MethodType.methodType(UserDto.class, User.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final UserController userController = new UserController();
+	private final User user = BenchmarkFixtures.user();
+
+	@Benchmark
+	public UserDto convertToDto() throws Throwable {
+		return (UserDto) CONVERT_TO_DTO.invokeExact(userController, user);
+	}
+}
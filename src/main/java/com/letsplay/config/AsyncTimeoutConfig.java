@@ -0,0 +1,43 @@
+package com.letsplay.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * AsyncTimeoutConfig lets a handler override the timeout of its own async request (e.g. a StreamingResponseBody),
+ * so that a long download is not cut off, while every other async request keeps the finite
+ * spring.mvc.async.request-timeout.
+ * <p>
+ * The handler sets the TIMEOUT_ATTRIBUTE request attribute; the timeout is applied just before the async processing
+ * starts, which is the last point where it can still be changed.
+ */
+@Configuration
+@Profile("!reactive")
+public class AsyncTimeoutConfig implements WebMvcConfigurer {
+
+    /**
+     * The request attribute holding the async timeout of the request, as a Long in milliseconds (-1 for no timeout).
+     */
+    public static final String TIMEOUT_ATTRIBUTE = AsyncTimeoutConfig.class.getName() + ".timeout";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object timeout = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (timeout instanceof Long millis && request instanceof AsyncWebRequest asyncWebRequest) {
+                    asyncWebRequest.setTimeout(millis);
+                }
+            }
+        });
+    }
+}
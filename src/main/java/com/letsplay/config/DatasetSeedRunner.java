@@ -0,0 +1,45 @@
+package com.letsplay.config;
+
+import com.letsplay.service.DatasetGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * DatasetSeedRunner turns the application into a command-line seeding tool: with the "seed" profile, it fills the
+ * database with the DatasetGenerator as soon as the application has started, and then exits. No web server is started.
+ * For example, 2 million users with their products:
+ * java -jar lets-play.jar --spring.profiles.active=seed --seed.users=2000000
+ * The settings are in application-seed.properties.
+ */
+@Component
+@Profile("seed")
+public class DatasetSeedRunner implements ApplicationRunner {
+
+    /**
+     * Spring will automatically inject an instance of DatasetGenerator here.
+     */
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    /**
+     * Spring will automatically inject the application context here. It is closed once seeding is done.
+     */
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    /**
+     * This method seeds the database, then closes the application and exits the JVM.
+     * @param args The application arguments.
+     * @throws InterruptedException if interrupted while seeding.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        datasetGenerator.generate();
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
@@ -0,0 +1,100 @@
+package com.letsplay.config;
+
+import com.letsplay.model.Product;
+import com.letsplay.model.RefreshToken;
+import com.letsplay.model.RevokedToken;
+import com.letsplay.model.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * MongoIndexInitializer creates the indexes declared on the @Document classes (with @Indexed, @CompoundIndex, ...)
+ * when the application starts, and then verifies that every one of them exists with the declared options.
+ * Spring Boot does not create these indexes automatically, so without this class they are only documentation.
+ * If an index cannot be created (e.g., duplicate emails prevent the unique index on users.email), startup fails.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    /**
+     * The @Document classes whose indexes are managed.
+     */
+    static final List<Class<?>> INDEXED_DOCUMENTS = List.of(User.class, Product.class, RefreshToken.class, RevokedToken.class);
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject the mapping context here. It knows the index annotations of every document.
+     */
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+
+    /**
+     * Whether the indexes are created and verified at startup.
+     */
+    @Value("${mongodb.indexes.ensure-on-startup:true}")
+    private boolean ensureOnStartup;
+
+    /**
+     * This method is called once the application context is ready.
+     * It creates the missing indexes and verifies all of them.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void ensureIndexes() {
+        if (!ensureOnStartup) {
+            return;
+        }
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        for (Class<?> documentClass : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(documentClass);
+            for (IndexDefinition definition : resolver.resolveIndexFor(documentClass)) {
+                // ensureIndex does nothing if an identical index already exists.
+                indexOps.ensureIndex(definition);
+            }
+            verifyIndexes(documentClass, indexOps, resolver);
+        }
+    }
+
+    /**
+     * This is a helper method that checks that every declared index of a document exists, with the same uniqueness.
+     * @param documentClass The @Document class.
+     * @param indexOps The index operations of its collection.
+     * @param resolver The resolver of the declared indexes.
+     * @throws IllegalStateException if a declared index is missing.
+     */
+    private void verifyIndexes(Class<?> documentClass, IndexOperations indexOps, IndexResolver resolver) {
+        List<IndexInfo> existing = indexOps.getIndexInfo();
+        for (IndexDefinition definition : resolver.resolveIndexFor(documentClass)) {
+            Document keys = definition.getIndexKeys();
+            boolean unique = definition.getIndexOptions().getBoolean("unique", false);
+            boolean found = existing.stream()
+                    .anyMatch(info -> info.isIndexForFields(keys.keySet()) && info.isUnique() == unique);
+            if (!found) {
+                throw new IllegalStateException("Missing index " + keys.toJson() + (unique ? " (unique)" : "")
+                        + " on collection " + mongoTemplate.getCollectionName(documentClass));
+            }
+        }
+        logger.info("Verified {} indexes on collection {}", existing.size(), mongoTemplate.getCollectionName(documentClass));
+    }
+}
@@ -0,0 +1,146 @@
+package com.letsplay.config;
+
+import com.letsplay.timing.RequestTiming;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ServerTimingFilter breaks the time of every request down into phases (JWT validation, user lookup, password hashing,
+ * MongoDB commands and JSON conversion, see RequestTiming), and reports them in a Server-Timing response header,
+ * which browser developer tools display next to the network timings. A sample of the requests can also be logged.
+ * <p>
+ * It runs before the Spring Security filters, so the JWT validation is included. The header is added just before
+ * the response is committed, so a JSON body larger than the response buffer is only counted up to that point.
+ * The MongoDB time is collected by a CommandListener, which the blocking driver calls on the request thread.
+ * <p>
+ * Both are disabled by default. When disabled, the filter only passes the request on, and the timed code only finds
+ * that no request is being timed on its thread. The header reveals how long the server spent on each phase,
+ * so it should only be enabled where the clients are trusted.
+ */
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter implements MongoClientSettingsBuilderCustomizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private static final String HEADER = "Server-Timing";
+
+    private final boolean headerEnabled;
+    private final double logSampleRate;
+
+    /**
+     * Constructor for ServerTimingFilter.
+     * @param headerEnabled Whether the Server-Timing header is added to the responses.
+     * @param logSampleRate The share of the requests whose timing is logged, from 0 to 1.
+     */
+    public ServerTimingFilter(@Value("${server-timing.enabled:false}") boolean headerEnabled,
+                              @Value("${server-timing.log-sample-rate:0}") double logSampleRate) {
+        this.headerEnabled = headerEnabled;
+        this.logSampleRate = logSampleRate;
+    }
+
+    /**
+     * Registers the listener that adds the MongoDB commands to the db phase, when request timing is enabled.
+     * @param builder The settings builder of a MongoDB client.
+     */
+    @Override
+    public void customize(MongoClientSettings.Builder builder) {
+        if (!isActive()) {
+            return;
+        }
+        builder.addCommandListener(new CommandListener() {
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                RequestTiming.add(RequestTiming.Phase.DB, event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public void commandFailed(CommandFailedEvent event) {
+                RequestTiming.add(RequestTiming.Phase.DB, event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+        });
+    }
+
+    /**
+     * This method is executed for every incoming request. It times the request, and adds the header
+     * and logs the timing if enabled.
+     * @param request The HTTP request.
+     * @param response The HTTP response.
+     * @param filterChain The filter chain to proceed with.
+     * @throws ServletException if a servlet-specific error occurs.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!isActive()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RequestTiming timing = RequestTiming.begin();
+        ServerTimingResponse timedResponse = headerEnabled ? new ServerTimingResponse(response, timing) : null;
+        try {
+            filterChain.doFilter(request, timedResponse != null ? timedResponse : response);
+        } finally {
+            if (timedResponse != null) {
+                timedResponse.writeHeader();
+            }
+            RequestTiming.end();
+            if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                logger.info("{} {} {}: {}", request.getMethod(), request.getRequestURI(), response.getStatus(), timing.toHeader());
+            }
+        }
+    }
+
+    private boolean isActive() {
+        return headerEnabled || logSampleRate > 0;
+    }
+
+    /**
+     * A response that adds the Server-Timing header when it is about to be committed, since headers cannot be
+     * added afterwards, or at the end of the request if it was not committed by then.
+     */
+    private static final class ServerTimingResponse extends OnCommittedResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean headerWritten;
+
+        ServerTimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                headerWritten = true;
+                setHeader(HEADER, timing.toHeader());
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.letsplay.config;
+
+import com.letsplay.dto.SlowCommand;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SlowCommandLog reports the MongoDB queries that take longer than a threshold, whatever repository or template
+ * method issued them. It is a CommandListener registered on the MongoDB clients of the application.
+ * <p>
+ * Every slow find, aggregate, count, distinct and findAndModify is logged with its shape: the filter (or pipeline)
+ * with every value replaced by "?", so that queries are grouped by their structure and no user data is logged.
+ * For a sample of them, the query planner's choice is captured with an explain (queryPlanner verbosity, which does
+ * not run the query again), on a background thread, so the application thread is never delayed.
+ * The most recent slow commands, with their plans, are kept in a bounded ring that administrators read at
+ * GET /api/admin/slow-queries.
+ * <p>
+ * The listener has to keep a copy of every tracked command until it completes, since the driver only reports the
+ * command when it starts and the duration when it ends. Set mongodb.slow-commands.enabled=false to avoid that cost.
+ */
+@Component
+public class SlowCommandLog implements CommandListener, MongoClientSettingsBuilderCustomizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowCommandLog.class);
+
+    /**
+     * The commands that are tracked: the queries, which can be explained.
+     */
+    private static final Set<String> TRACKED_COMMANDS = Set.of("find", "aggregate", "count", "distinct", "findAndModify");
+
+    /**
+     * The fields of a command that describe the query, and make up its shape.
+     */
+    private static final List<String> SHAPE_FIELDS = List.of("filter", "query", "pipeline", "sort", "projection");
+
+    /**
+     * The fields whose values are field names or directions rather than user data, and are kept in the shape.
+     */
+    private static final Set<String> UNREDACTED_FIELDS = Set.of("sort", "projection", "$sort", "$project", "$limit", "$skip");
+
+    /**
+     * The session and transaction fields the driver adds to a command, which are not sent again with the explain.
+     */
+    private static final Set<String> SESSION_FIELDS = Set.of("lsid", "txnNumber", "autocommit", "startTransaction",
+            "readConcern", "writeConcern", "apiVersion", "apiStrict", "apiDeprecationErrors");
+
+    /**
+     * The tracked commands that have started and not completed yet, by request ID.
+     */
+    private final Map<Integer, StartedCommand> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The most recent slow commands, the oldest first. Guarded by itself.
+     */
+    private final Deque<SlowCommand> recent = new ArrayDeque<>();
+
+    /**
+     * The MongoTemplate the explains are run with. It is looked up lazily, since the MongoTemplate depends on the
+     * MongoClient this listener is registered on.
+     */
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final double explainSampleRate;
+    private final int capacity;
+
+    /**
+     * The single thread the explains run on. Explains that do not fit in its small queue are dropped.
+     */
+    private final ThreadPoolExecutor explainExecutor;
+
+    /**
+     * Constructor for SlowCommandLog.
+     * @param mongoTemplate The provider of the MongoTemplate the explains are run with.
+     * @param enabled Whether slow commands are tracked.
+     * @param thresholdMillis The duration above which a command is slow.
+     * @param explainSampleRate The share of the slow commands that are explained, from 0 to 1.
+     * @param capacity The number of slow commands kept in memory.
+     */
+    public SlowCommandLog(ObjectProvider<MongoTemplate> mongoTemplate,
+                          @Value("${mongodb.slow-commands.enabled:true}") boolean enabled,
+                          @Value("${mongodb.slow-commands.threshold-millis:100}") long thresholdMillis,
+                          @Value("${mongodb.slow-commands.explain-sample-rate:0.1}") double explainSampleRate,
+                          @Value("${mongodb.slow-commands.capacity:100}") int capacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explainSampleRate = explainSampleRate;
+        this.capacity = capacity;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slow-command-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Registers this listener on the MongoDB clients (blocking and reactive) created by Spring Boot.
+     * @param builder The settings builder of a MongoDB client.
+     */
+    @Override
+    public void customize(MongoClientSettings.Builder builder) {
+        if (enabled) {
+            builder.addCommandListener(this);
+        }
+    }
+
+    /**
+     * Stops the explain thread when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!TRACKED_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+        // The command document may be backed by a network buffer that is released after this call, so its fields
+        // are copied. Reading them from the document decodes them into new objects.
+        BsonDocument command = new BsonDocument();
+        for (Map.Entry<String, BsonValue> field : event.getCommand().entrySet()) {
+            if (!field.getKey().startsWith("$") && !SESSION_FIELDS.contains(field.getKey())) {
+                command.put(field.getKey(), field.getValue());
+            }
+        }
+        inFlight.put(event.getRequestId(), new StartedCommand(event.getDatabaseName(), command));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Gets the most recent slow commands.
+     * @return the slow commands, the most recent first.
+     */
+    public List<SlowCommand> recent() {
+        List<SlowCommand> result;
+        synchronized (recent) {
+            result = new ArrayList<>(recent);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * This is a helper method that records a tracked command that completed, if it was slow.
+     */
+    private void completed(int requestId, String commandName, long elapsedNanos) {
+        StartedCommand started = inFlight.remove(requestId);
+        if (started == null || elapsedNanos < thresholdNanos) {
+            return;
+        }
+        BsonValue collection = started.command.get(commandName);
+        SlowCommand slowCommand = new SlowCommand(new Date(), started.database,
+                collection != null && collection.isString() ? collection.asString().getValue() : String.valueOf(collection),
+                commandName, shape(started.command), elapsedNanos / 1e6);
+        logger.warn("Slow MongoDB command: {} on {}.{} took {} ms, shape {}", commandName, slowCommand.getDatabase(),
+                slowCommand.getCollection(), String.format("%.1f", slowCommand.getElapsedMillis()), slowCommand.getShape());
+        synchronized (recent) {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(slowCommand);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+            explainExecutor.execute(() -> explain(started, slowCommand));
+        }
+    }
+
+    /**
+     * This is a helper method that runs an explain of a slow command and stores the summary of its winning plan.
+     */
+    private void explain(StartedCommand started, SlowCommand slowCommand) {
+        try {
+            BsonDocument explain = new BsonDocument("explain", started.command)
+                    .append("verbosity", new BsonString("queryPlanner"));
+            Document result = mongoTemplate.getObject().getMongoDatabaseFactory()
+                    .getMongoDatabase(started.database)
+                    .runCommand(explain);
+            Document queryPlanner = findQueryPlanner(result);
+            if (queryPlanner == null) {
+                return;
+            }
+            Document winningPlan = queryPlanner.get("winningPlan", Document.class);
+            // With the slot-based execution engine, the classic plan tree is nested under queryPlan.
+            if (winningPlan != null && winningPlan.containsKey("queryPlan")) {
+                winningPlan = winningPlan.get("queryPlan", Document.class);
+            }
+            List<?> rejectedPlans = queryPlanner.get("rejectedPlans", List.class);
+            slowCommand.setPlan(summarize(winningPlan), rejectedPlans != null ? rejectedPlans.size() : 0);
+            logger.warn("Plan of the slow {} on {}: {}", slowCommand.getCommand(), slowCommand.getCollection(), slowCommand.getPlan());
+        } catch (RuntimeException e) {
+            logger.debug("Could not explain the slow {} on {}", slowCommand.getCommand(), slowCommand.getCollection(), e);
+        }
+    }
+
+    /**
+     * This is a helper method that finds the queryPlanner section of an explain result: at the top level,
+     * or in the $cursor stage of an aggregation.
+     */
+    private static Document findQueryPlanner(Document result) {
+        Document queryPlanner = result.get("queryPlanner", Document.class);
+        List<?> stages = result.get("stages", List.class);
+        if (queryPlanner == null && stages != null && !stages.isEmpty() && stages.get(0) instanceof Document first) {
+            Document cursor = first.get("$cursor", Document.class);
+            queryPlanner = cursor != null ? cursor.get("queryPlanner", Document.class) : null;
+        }
+        return queryPlanner;
+    }
+
+    /**
+     * This is a helper method that summarizes a plan tree as its stages, from the root, with the key pattern
+     * of the index scans, e.g. "FETCH > IXSCAN {"email": 1}". Index bounds are left out, since they hold values.
+     */
+    private static String summarize(Document stage) {
+        if (stage == null) {
+            return "unknown";
+        }
+        StringBuilder summary = new StringBuilder(stage.get("stage", "?"));
+        Document keyPattern = stage.get("keyPattern", Document.class);
+        if (keyPattern != null) {
+            summary.append(' ').append(keyPattern.toJson());
+        }
+        Document inputStage = stage.get("inputStage", Document.class);
+        List<?> inputStages = stage.get("inputStages", List.class);
+        if (inputStage != null) {
+            summary.append(" > ").append(summarize(inputStage));
+        } else if (inputStages != null) {
+            List<String> children = new ArrayList<>();
+            for (Object child : inputStages) {
+                children.add(summarize((Document) child));
+            }
+            summary.append(" > [").append(String.join(", ", children)).append(']');
+        }
+        return summary.toString();
+    }
+
+    /**
+     * This is a helper method that builds the shape of a command: its filter, pipeline, sort and projection, redacted.
+     */
+    private static String shape(BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        for (String field : SHAPE_FIELDS) {
+            if (command.containsKey(field)) {
+                shape.put(field, redact(command.get(field), UNREDACTED_FIELDS.contains(field)));
+            }
+        }
+        return shape.toJson();
+    }
+
+    /**
+     * This is a helper method that replaces every value of a BSON value with "?", keeping the field names and
+     * operators. Arrays of values (e.g. of an $in) become ["?"], so that their length does not change the shape.
+     * @param value The value to redact.
+     * @param keep Whether the values are kept (e.g. inside a sort).
+     * @return the redacted value.
+     */
+    private static BsonValue redact(BsonValue value, boolean keep) {
+        if (keep) {
+            return value;
+        }
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+                redacted.put(field.getKey(), redact(field.getValue(), UNREDACTED_FIELDS.contains(field.getKey())));
+            }
+            return redacted;
+        }
+        if (value.isArray()) {
+            BsonArray array = value.asArray();
+            if (array.stream().noneMatch(element -> element.isDocument() || element.isArray())) {
+                return new BsonArray(List.of(new BsonString("?")));
+            }
+            BsonArray redacted = new BsonArray();
+            for (BsonValue element : array) {
+                redacted.add(redact(element, false));
+            }
+            return redacted;
+        }
+        return new BsonString("?");
+    }
+
+    /**
+     * A tracked command that has started: its database, and the copy of the command.
+     */
+    private static final class StartedCommand {
+
+        final String database;
+        final BsonDocument command;
+
+        StartedCommand(String database, BsonDocument command) {
+            this.database = database;
+            this.command = command;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.letsplay.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letsplay.timing.RequestTiming;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * TimedJacksonHttpMessageConverter is the JSON converter of Spring MVC, with the reading and writing of request and
+ * response bodies counted in the json phase of the Server-Timing header (see ServerTimingFilter).
+ * Spring Boot uses it instead of its default MappingJackson2HttpMessageConverter, with the same ObjectMapper.
+ */
+@Component
+@Profile("!reactive")
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    /**
+     * Constructor for TimedJacksonHttpMessageConverter.
+     * @param objectMapper The ObjectMapper of the application.
+     */
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        long start = RequestTiming.start(RequestTiming.Phase.JSON);
+        try {
+            return super.read(type, contextClass, inputMessage);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.JSON, start);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = RequestTiming.start(RequestTiming.Phase.JSON);
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.JSON, start);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.letsplay.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * VirtualThreadPinningMonitor reports virtual threads that stay pinned to their carrier thread,
+ * typically because they block (on I/O, a lock, or BCrypt) inside a synchronized block or method.
+ * A pinned virtual thread holds a carrier thread for as long as it blocks, which defeats the purpose of virtual threads.
+ * It listens to the jdk.VirtualThreadPinned JFR event in-process, so no external profiler is needed.
+ * It is only active when virtual threads are enabled (spring.threads.virtual.enabled=true, Java 21+).
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    /**
+     * The JFR event emitted by the JVM when a virtual thread blocks while pinned.
+     */
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Whether the monitor is enabled.
+     */
+    @Value("${virtual-threads.pinning-monitor.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Pinned sections shorter than this are ignored.
+     */
+    @Value("${virtual-threads.pinning-monitor.threshold-millis:20}")
+    private long thresholdMillis;
+
+    /**
+     * The number of pinning events seen since startup.
+     */
+    private final AtomicLong pinnedEvents = new AtomicLong();
+
+    /**
+     * The JFR stream, or null if the monitor is not running.
+     */
+    private RecordingStream recordingStream;
+
+    /**
+     * Starts listening to pinning events in the background.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(thresholdMillis))
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        logger.info("Virtual thread pinning monitor started (threshold {} ms)", thresholdMillis);
+    }
+
+    /**
+     * Stops listening to pinning events.
+     */
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * Gets the number of pinning events seen since startup.
+     * @return the number of pinning events.
+     */
+    public long getPinnedEventCount() {
+        return pinnedEvents.get();
+    }
+
+    /**
+     * Logs a pinning event with the top of its stack trace, which shows the synchronized section at fault.
+     * @param event The jdk.VirtualThreadPinned event.
+     */
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+        String stackTrace = event.getStackTrace() == null ? "<no stack trace>"
+                : event.getStackTrace().getFrames().stream()
+                        .limit(12)
+                        .map(VirtualThreadPinningMonitor::formatFrame)
+                        .collect(Collectors.joining("\n\tat ", "\tat ", ""));
+        logger.warn("Virtual thread pinned for {} ms:\n{}", event.getDuration().toMillis(), stackTrace);
+    }
+
+    private static String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,161 @@
+package com.letsplay.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.letsplay.config.SlowCommandLog;
+import com.letsplay.dto.CredentialsUpdateRequest;
+import com.letsplay.dto.SlowCommand;
+import com.letsplay.security.PasswordEncoderCalibrator;
+import com.letsplay.security.PasswordHashingExecutor;
+import com.letsplay.security.UserLookupCache;
+import com.letsplay.security.VerifiedTokenCache;
+import com.letsplay.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a Spring REST controller that exposes operational information to administrators.
+ * @RequestMapping("/api/admin") maps all requests starting with "/api/admin" to this controller.
+ * Access is restricted to users with the ADMIN role in SecurityConfig.
+ * It is only active in the blocking (servlet) stack.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    /**
+     * Spring will automatically inject an instance of UserLookupCache here.
+     */
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    /**
+     * Spring will automatically inject an instance of VerifiedTokenCache here.
+     */
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Spring will automatically inject an instance of PasswordHashingExecutor here.
+     */
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    /**
+     * Spring will automatically inject an instance of PasswordEncoderCalibrator here.
+     */
+    @Autowired
+    private PasswordEncoderCalibrator passwordEncoderCalibrator;
+
+    /**
+     * Spring will automatically inject an instance of SlowCommandLog here.
+     */
+    @Autowired
+    private SlowCommandLog slowCommandLog;
+
+    /**
+     * Spring will automatically inject an instance of UserService here.
+     */
+    @Autowired
+    private UserService userService;
+
+    /**
+     * This method handles GET requests to "/api/admin/cache/users".
+     * It returns the counters of the user cache, which are used to size it.
+     * @return a Map with the size, hit, miss and eviction counters of the user cache.
+     */
+    @GetMapping("/cache/users")
+    public Map<String, Object> getUserCacheStats() {
+        return toMap(userLookupCache.size(), userLookupCache.stats());
+    }
+
+    /**
+     * This method handles GET requests to "/api/admin/cache/tokens".
+     * It returns the counters of the verified-token cache. Every hit is a signature verification that was saved.
+     * @return a Map with the size, hit, miss and eviction counters of the verified-token cache.
+     */
+    @GetMapping("/cache/tokens")
+    public Map<String, Object> getTokenCacheStats() {
+        return toMap(verifiedTokenCache.size(), verifiedTokenCache.stats());
+    }
+
+    /**
+     * This method handles DELETE requests to "/api/admin/cache/tokens".
+     * It flushes the verified-token cache, e.g., after the JWT secret has been rotated.
+     * @return an empty ResponseEntity with status 204 (No Content).
+     */
+    @DeleteMapping("/cache/tokens")
+    public ResponseEntity<Void> flushTokenCache() {
+        verifiedTokenCache.flush();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * This method handles GET requests to "/api/admin/password-hashing".
+     * It returns the queue depth, rejections and hash latency of the password hashing executor,
+     * and the BCrypt strength chosen at startup with its measured hash time.
+     * @return a Map with the metrics of the password hashing executor.
+     */
+    @GetMapping("/password-hashing")
+    public Map<String, Object> getPasswordHashingMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("bcryptStrength", passwordEncoderCalibrator.getStrength());
+        metrics.put("calibratedHashMillis", passwordEncoderCalibrator.getMeasuredHashMillis());
+        metrics.putAll(passwordHashingExecutor.getMetrics());
+        return metrics;
+    }
+
+    /**
+     * This method handles GET requests to "/api/admin/slow-queries".
+     * It returns the most recent MongoDB queries that exceeded mongodb.slow-commands.threshold-millis, with their
+     * redacted shape and, for the sampled ones, the plan the query planner chose.
+     * @return a List of SlowCommand, the most recent first.
+     */
+    @GetMapping("/slow-queries")
+    public List<SlowCommand> getSlowQueries() {
+        return slowCommandLog.recent();
+    }
+
+    /**
+     * This method handles PUT requests to "/api/admin/users/{email}/credentials".
+     * It changes the password and/or the role of a user. The tokens issued to the user before the change are revoked.
+     * @param email The email of the user.
+     * @param request The new password and/or role.
+     * @return an empty ResponseEntity with status 204 (No Content).
+     */
+    @PutMapping("/users/{email}/credentials")
+    public ResponseEntity<Void> updateCredentials(@PathVariable String email, @RequestBody CredentialsUpdateRequest request) {
+        userService.updateCredentials(email, request.getPassword(), request.getRole());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * This is a helper method to convert cache statistics to a Map that is serialized as JSON.
+     * @param size The number of entries in the cache.
+     * @param stats The statistics of the cache.
+     * @return a Map with the counters of the cache.
+     */
+    private Map<String, Object> toMap(long size, CacheStats stats) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("loads", stats.loadCount());
+        result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return result;
+    }
+}
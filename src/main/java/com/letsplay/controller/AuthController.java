@@ -2,24 +2,30 @@ package com.letsplay.controller;
 
 import com.letsplay.dto.AuthRequest;
 import com.letsplay.dto.AuthResponse;
-import com.letsplay.security.JwtUtil;
-import com.letsplay.security.UserDetailsServiceImpl;
+import com.letsplay.dto.RefreshRequest;
+import com.letsplay.service.RefreshTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * This class is a Spring REST controller that handles HTTP requests for authentication.
  * It exposes endpoints for user login and potentially other authentication-related operations.
+ * It is only active in the blocking (servlet) stack; the "reactive" profile replaces it with a WebFlux equivalent.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/auth")
 public class AuthController {
 
@@ -31,31 +37,28 @@ public class AuthController {
     private AuthenticationManager authenticationManager;
 
     /**
-     * Spring will automatically inject an instance of UserDetailsServiceImpl here.
-     * This service is used to load user-specific data.
+     * Spring will automatically inject an instance of RefreshTokenService here.
+     * It issues the access and refresh tokens, and rotates and revokes the refresh tokens.
      */
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
-
-    /**
-     * Spring will automatically inject an instance of JwtUtil here.
-     * This utility is used for generating and validating JWTs.
-     */
-    @Autowired
-    private JwtUtil jwtUtil;
+    private RefreshTokenService refreshTokenService;
 
     /**
      * This method handles POST requests to "/api/auth/login".
-     * It authenticates the user with the provided email and password, and if successful, generates and returns a JWT.
+     * It authenticates the user with the provided email and password, and if successful, generates and returns
+     * a short-lived JWT and a refresh token.
+     * The token is generated from the principal returned by the authentication (a UserPrincipal, which carries the
+     * user's id and role), so the user is only loaded from the database once per login.
      * @param authRequest The AuthRequest object containing the user's email and password.
-     * @return a ResponseEntity containing an AuthResponse with the JWT, or an error message if authentication fails.
+     * @return a ResponseEntity containing an AuthResponse with the tokens, or an error message if authentication fails.
      * @throws Exception if an error occurs during authentication.
      */
     @PostMapping("/login")
     public ResponseEntity<?> createAuthenticationToken(@RequestBody AuthRequest authRequest) throws Exception {
+        final Authentication authentication;
         try {
             // Attempt to authenticate the user with the provided username (email) and password.
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(authRequest.getEmail(), authRequest.getPassword())
             );
         } catch (BadCredentialsException e) {
@@ -63,13 +66,36 @@ public class AuthController {
             throw new Exception("Incorrect username or password", e);
         }
 
-        // If authentication is successful, load the user details.
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(authRequest.getEmail());
+        // If authentication is successful, the principal is the user that was loaded to check the password.
+        final UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-        // Generate a JWT for the authenticated user.
-        final String jwt = jwtUtil.generateToken(userDetails);
+        // Generate a JWT and a refresh token for the authenticated user, and return them in an AuthResponse object.
+        return ResponseEntity.ok(refreshTokenService.issue(userDetails));
+    }
 
-        // Return a ResponseEntity with the JWT in an AuthResponse object.
-        return ResponseEntity.ok(new AuthResponse(jwt));
+    /**
+     * This method handles POST requests to "/api/auth/refresh".
+     * It swaps a refresh token for a new JWT and a new refresh token. The refresh token cannot be used again.
+     * @param refreshRequest The RefreshRequest object containing the refresh token.
+     * @return a ResponseEntity containing an AuthResponse with the new tokens, or 401 if the refresh token is not valid.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refreshAuthenticationToken(@RequestBody RefreshRequest refreshRequest) {
+        return ResponseEntity.ok(refreshTokenService.refresh(refreshRequest.getRefreshToken()));
+    }
+
+    /**
+     * This method handles POST requests to "/api/auth/logout".
+     * It revokes the refresh token (with every token it was rotated from or into) and the JWT of the request, if any.
+     * @param authorizationHeader The Authorization header, with the JWT to revoke.
+     * @param refreshRequest The RefreshRequest object containing the refresh token to revoke.
+     * @return a ResponseEntity with status 204 (No Content).
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationHeader,
+                                       @RequestBody(required = false) RefreshRequest refreshRequest) {
+        String jwt = authorizationHeader != null && authorizationHeader.startsWith("Bearer ") ? authorizationHeader.substring(7) : null;
+        refreshTokenService.logout(refreshRequest != null ? refreshRequest.getRefreshToken() : null, jwt);
+        return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
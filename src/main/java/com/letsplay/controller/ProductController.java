@@ -1,11 +1,33 @@
 package com.letsplay.controller;
 
+import com.letsplay.config.AsyncTimeoutConfig;
+import com.letsplay.dto.BulkProductOperation;
+import com.letsplay.dto.BulkResponse;
+import com.letsplay.dto.ProductPage;
 import com.letsplay.model.Product;
-import com.letsplay.repository.ProductRepository;
+import com.letsplay.security.UserPrincipal;
+import com.letsplay.service.CatalogVersion;
+import com.letsplay.service.ProductBulkService;
+import com.letsplay.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -13,31 +35,139 @@ import java.util.List;
  * This class is a Spring REST controller that handles HTTP requests related to Products.
  * @RestController is a specialized version of the controller. It includes the @Controller and @ResponseBody annotations.
  * @RequestMapping("/api/products") maps all requests starting with "/api/products" to this controller.
+ * It is only active in the blocking (servlet) stack; the "reactive" profile replaces it with a WebFlux equivalent.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/products")
 public class ProductController {
 
     /**
-     * Spring will automatically inject an instance of ProductRepository here.
+     * Spring will automatically inject an instance of ProductService here.
      */
     @Autowired
-    private ProductRepository productRepository;
+    private ProductService productService;
+
+    /**
+     * Spring will automatically inject an instance of CatalogVersion here.
+     * It provides the ETags of the product reads.
+     */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /**
+     * Spring will automatically inject an instance of ProductBulkService here.
+     */
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    /**
+     * The async timeout of the export, in milliseconds, or -1 for no timeout.
+     * It replaces spring.mvc.async.request-timeout, which would cut long exports off.
+     */
+    @Value("${products.export.timeout-millis:-1}")
+    private long exportTimeoutMillis;
 
     /**
      * This method handles GET requests to "/api/products".
-     * It returns a list of all products.
-     * @return a List of Product objects.
+     * It returns one page of products. The whole collection is never loaded at once:
+     * clients follow the nextCursor of each page until it is null.
+     * The response carries an ETag taken from the catalog version. If the client sends it back in If-None-Match
+     * and no product changed since, the answer is 304 (Not Modified), without querying MongoDB or serializing a body.
+     * @param cursor The cursor returned with the previous page. Omit it to get the first page.
+     * @param size The number of products per page. It is capped to the configured maximum page size.
+     * @param fields The fields to return, e.g. "summary" (id, name and price) or "name,price". Omit it for all fields.
+     * @param ifNoneMatch The If-None-Match header, if any.
+     * @return a ResponseEntity with a ProductPage with the products and the cursor of the next page, or a 304.
      */
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public ResponseEntity<ProductPage> getAllProducts(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer size,
+                                                      @RequestParam(required = false) String fields,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read the ETag before the query, so that a write during the query can only make the ETag older, never newer.
+        String etag = catalogVersion.catalogEtag();
+        if (etag.equals(catalogVersion.findUnchangedEtag(ifNoneMatch))) {
+            return notModified(etag);
+        }
+        ProductPage page = productService.getProducts(cursor, size, fields);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(page);
+    }
+
+    /**
+     * This method handles GET requests to "/api/products/{id}".
+     * It returns a single product, with an ETag that combines the catalog version and the product's own version.
+     * If no product changed since the client's ETag was issued, the answer is 304 without querying MongoDB.
+     * Otherwise the product is loaded, and if its version is still the one the client has, the answer is a 304
+     * (with the refreshed ETag) without serializing a body.
+     * @param id The ID of the product.
+     * @param ifNoneMatch The If-None-Match header, if any.
+     * @return a ResponseEntity with the product, a 304, or a 404 if the product does not exist.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Product> getProductById(@PathVariable String id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String unchangedEtag = catalogVersion.findUnchangedProductEtag(ifNoneMatch, id);
+        if (unchangedEtag != null) {
+            return notModified(unchangedEtag);
+        }
+        Product product = productService.getProductById(id).orElse(null);
+        if (product == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = catalogVersion.productEtag(product);
+        if (catalogVersion.matchesProduct(ifNoneMatch, product)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(product);
+    }
+
+    /**
+     * This method handles GET requests to "/api/products/export".
+     * It streams the whole catalog as newline-delimited JSON (application/x-ndjson), one product per line.
+     * The response is written directly to the output stream from a MongoDB cursor, so it never holds
+     * the whole collection in memory.
+     * The export runs as an async request, with its own timeout (products.export.timeout-millis).
+     * @param fields The fields to export, with the same syntax as for the listing. Omit it for all fields.
+     * @param request The HTTP request, which carries the timeout of the export.
+     * @return a ResponseEntity with a StreamingResponseBody that writes the products.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) String fields,
+                                                                HttpServletRequest request) {
+        request.setAttribute(AsyncTimeoutConfig.TIMEOUT_ATTRIBUTE, exportTimeoutMillis);
+        StreamingResponseBody body = outputStream -> productService.exportProducts(outputStream, fields);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * This method handles POST requests to "/api/products/bulk".
+     * It applies a batch of product upserts and deletes, and reports the outcome of every operation.
+     * A failing operation does not stop the others.
+     * @param operations The list of operations, in order.
+     * @param principal The authenticated user, who owns the created products.
+     * @return a BulkResponse with the number of operations per status and the outcome of every operation.
+     */
+    @PostMapping("/bulk")
+    public BulkResponse bulkWrite(@RequestBody List<BulkProductOperation> operations,
+                                  @AuthenticationPrincipal UserPrincipal principal) {
+        return productBulkService.bulkWrite(operations, principal);
+    }
+
+    /**
+     * This is a helper method to build a 304 (Not Modified) response.
+     * @param etag The ETag that is still valid.
+     * @param <T> The type of the body that is not sent.
+     * @return a ResponseEntity with status 304 and the ETag.
+     */
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).eTag(etag).build();
     }
 
     // You can add other controller methods here for creating, updating, and deleting products.
     // For example:
-    // - @PostMapping to create a new product.
     // - @PutMapping("/{id}") to update an existing product.
     // - @DeleteMapping("/{id}") to delete a product.
-    // - @GetMapping("/{id}") to get a single product by its ID.
 }
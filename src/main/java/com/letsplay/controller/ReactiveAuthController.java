@@ -0,0 +1,89 @@
+package com.letsplay.controller;
+
+import com.letsplay.dto.AuthRequest;
+import com.letsplay.dto.AuthResponse;
+import com.letsplay.dto.RefreshRequest;
+import com.letsplay.service.RefreshTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * This class is the reactive counterpart of AuthController, used by the "reactive" profile.
+ * It exposes the same login endpoint, with the same request and response bodies.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@Profile("reactive")
+public class ReactiveAuthController {
+
+    /**
+     * Spring will automatically inject an instance of ReactiveAuthenticationManager here.
+     */
+    @Autowired
+    private ReactiveAuthenticationManager authenticationManager;
+
+    /**
+     * Spring will automatically inject an instance of RefreshTokenService here.
+     * It uses the blocking MongoTemplate, so its calls run on the bounded elastic scheduler, not on the event loop.
+     */
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    /**
+     * This method handles POST requests to "/api/auth/login".
+     * The token is generated from the principal returned by the authentication, so the user is only loaded once.
+     * @param authRequest The AuthRequest object containing the user's email and password.
+     * @return a Mono emitting a ResponseEntity containing an AuthResponse with the JWT.
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> createAuthenticationToken(@RequestBody AuthRequest authRequest) {
+        return authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(authRequest.getEmail(), authRequest.getPassword()))
+                // Same error as the blocking AuthController, so both stacks answer identically.
+                .onErrorMap(BadCredentialsException.class, e -> new Exception("Incorrect username or password", e))
+                .publishOn(Schedulers.boundedElastic())
+                .map(authentication -> refreshTokenService.issue((UserDetails) authentication.getPrincipal()))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * This method handles POST requests to "/api/auth/refresh", like AuthController.refreshAuthenticationToken.
+     * @param refreshRequest The RefreshRequest object containing the refresh token.
+     * @return a Mono emitting a ResponseEntity containing an AuthResponse with the new tokens.
+     */
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<AuthResponse>> refreshAuthenticationToken(@RequestBody RefreshRequest refreshRequest) {
+        return Mono.fromCallable(() -> refreshTokenService.refresh(refreshRequest.getRefreshToken()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * This method handles POST requests to "/api/auth/logout", like AuthController.logout.
+     * @param authorizationHeader The Authorization header, with the JWT to revoke.
+     * @param refreshRequest The RefreshRequest object containing the refresh token to revoke.
+     * @return a Mono emitting a ResponseEntity with status 204 (No Content).
+     */
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationHeader,
+                                             @RequestBody(required = false) RefreshRequest refreshRequest) {
+        String jwt = authorizationHeader != null && authorizationHeader.startsWith("Bearer ") ? authorizationHeader.substring(7) : null;
+        String refreshToken = refreshRequest != null ? refreshRequest.getRefreshToken() : null;
+        return Mono.fromRunnable(() -> refreshTokenService.logout(refreshToken, jwt))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.letsplay.controller;
+
+import com.letsplay.dto.ProductPage;
+import com.letsplay.model.Product;
+import com.letsplay.repository.ReactiveProductRepository;
+import com.letsplay.service.CatalogVersion;
+import com.letsplay.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * This class is the reactive counterpart of ProductController, used by the "reactive" profile.
+ * It builds its queries with ProductService, so pagination, cursors and projections behave exactly the same,
+ * but runs them through ReactiveMongoTemplate.
+ */
+@RestController
+@RequestMapping("/api/products")
+@Profile("reactive")
+public class ReactiveProductController {
+
+    /**
+     * Spring will automatically inject an instance of ProductService here.
+     */
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Spring will automatically inject an instance of ReactiveMongoTemplate here.
+     */
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of ReactiveProductRepository here.
+     */
+    @Autowired
+    private ReactiveProductRepository reactiveProductRepository;
+
+    /**
+     * Spring will automatically inject an instance of CatalogVersion here.
+     */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /**
+     * This method handles GET requests to "/api/products", with the same ETag handling as ProductController.
+     * @param cursor The cursor returned with the previous page. Omit it to get the first page.
+     * @param size The number of products per page. It is capped to the configured maximum page size.
+     * @param fields The fields to return, e.g. "summary" or "name,price". Omit it for all fields.
+     * @param ifNoneMatch The If-None-Match header, if any.
+     * @return a Mono emitting a ResponseEntity with a ProductPage, or a 304.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<ProductPage>> getAllProducts(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @RequestParam(required = false) String fields,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.catalogEtag();
+        if (etag.equals(catalogVersion.findUnchangedEtag(ifNoneMatch))) {
+            return Mono.just(notModified(etag));
+        }
+        int pageSize = productService.resolvePageSize(size);
+        return Mono.fromCallable(() -> productService.buildPageQuery(cursor, pageSize, fields))
+                .flatMapMany(query -> reactiveMongoTemplate.find(query, Product.class))
+                .collectList()
+                .map(products -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag)
+                        .body(productService.toPage(products, pageSize)));
+    }
+
+    /**
+     * This method handles GET requests to "/api/products/{id}", with the same ETag handling as ProductController.
+     * @param id The ID of the product.
+     * @param ifNoneMatch The If-None-Match header, if any.
+     * @return a Mono emitting a ResponseEntity with the product, a 304, or a 404 if the product does not exist.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Product>> getProductById(@PathVariable String id,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String unchangedEtag = catalogVersion.findUnchangedProductEtag(ifNoneMatch, id);
+        if (unchangedEtag != null) {
+            return Mono.just(notModified(unchangedEtag));
+        }
+        return reactiveProductRepository.findById(id)
+                .map(product -> {
+                    String etag = catalogVersion.productEtag(product);
+                    if (catalogVersion.matchesProduct(ifNoneMatch, product)) {
+                        return ReactiveProductController.<Product>notModified(etag);
+                    }
+                    return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(product);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * This method handles GET requests to "/api/products/export".
+     * WebFlux writes each product as one line of JSON as soon as it is read, with backpressure,
+     * and cancels the MongoDB cursor if the client disconnects.
+     * @param fields The fields to export, with the same syntax as for the listing. Omit it for all fields.
+     * @return a Flux of products, written as newline-delimited JSON.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Product> exportProducts(@RequestParam(required = false) String fields) {
+        return Mono.fromCallable(() -> productService.buildExportQuery(fields))
+                .flatMapMany(query -> reactiveMongoTemplate.find(query, Product.class));
+    }
+
+    /**
+     * This is a helper method to build a 304 (Not Modified) response.
+     * @param etag The ETag that is still valid.
+     * @param <T> The type of the body that is not sent.
+     * @return a ResponseEntity with status 304 and the ETag.
+     */
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).eTag(etag).build();
+    }
+}
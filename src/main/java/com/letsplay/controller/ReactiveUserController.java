@@ -0,0 +1,90 @@
+package com.letsplay.controller;
+
+import com.letsplay.dto.UserDto;
+import com.letsplay.model.User;
+import com.letsplay.repository.ReactiveUserRepository;
+import com.letsplay.security.UserLookupCache;
+import com.letsplay.service.InvalidationBus;
+import com.letsplay.service.InvalidationEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * This class is the reactive counterpart of UserController, used by the "reactive" profile.
+ * It exposes the same sign-up endpoint, with the same request and response bodies.
+ */
+@RestController
+@RequestMapping("/api/users")
+@Profile("reactive")
+public class ReactiveUserController {
+
+    /**
+     * Spring will automatically inject an instance of ReactiveUserRepository here.
+     */
+    @Autowired
+    private ReactiveUserRepository reactiveUserRepository;
+
+    /**
+     * Spring will automatically inject an instance of PasswordEncoder here.
+     */
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    /**
+     * Spring will automatically inject an instance of UserLookupCache here.
+     * Every write to a user must evict it from this cache.
+     */
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    /**
+     * Spring will automatically inject an instance of InvalidationBus here.
+     * Every write to a user is sent to the other nodes, so that they evict it from their caches too.
+     */
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * This method handles POST requests to "/api/users".
+     * BCrypt hashing is CPU-bound and blocking, so it runs on the bounded elastic scheduler, never on the event loop.
+     * @param user The User object to be created.
+     * @return a Mono emitting a UserDto object, which is a safe representation of the User.
+     */
+    @PostMapping
+    public Mono<UserDto> createUser(@RequestBody User user) {
+        return Mono.fromCallable(() -> passwordEncoder.encode(user.getPassword()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(hash -> {
+                    user.setPassword(hash);
+                    // A new user always starts at token version 0, whatever the client sent.
+                    user.setTokenVersion(0);
+                    return reactiveUserRepository.save(user);
+                })
+                .doOnNext(savedUser -> {
+                    userLookupCache.evict(savedUser.getEmail());
+                    invalidationBus.publish(InvalidationEvent.userChanged(savedUser.getEmail(), savedUser.getTokenVersion()));
+                })
+                .map(this::convertToDto);
+    }
+
+    /**
+     * This is a helper method to convert a User object to a UserDto object, like UserController does.
+     * @param user The User object to be converted.
+     * @return a UserDto object.
+     */
+    private UserDto convertToDto(User user) {
+        UserDto userDto = new UserDto();
+        userDto.setId(user.getId());
+        userDto.setName(user.getName());
+        userDto.setEmail(user.getEmail());
+        userDto.setRole(user.getRole());
+        return userDto;
+    }
+}
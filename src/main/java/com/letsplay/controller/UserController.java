@@ -1,20 +1,29 @@
 package com.letsplay.controller;
 
+import com.letsplay.dto.ImportReport;
 import com.letsplay.dto.UserDto;
 import com.letsplay.model.User;
+import com.letsplay.service.UserImportService;
 import com.letsplay.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+
 /**
  * This class is a Spring REST controller that handles HTTP requests related to Users.
  * @RestController is a specialized version of the controller. It includes the @Controller and @ResponseBody annotations.
  * @RequestMapping("/api/users") maps all requests starting with "/api/users" to this controller.
+ * It is only active in the blocking (servlet) stack; the "reactive" profile replaces it with a WebFlux equivalent.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/users")
 public class UserController {
 
@@ -24,6 +33,12 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    /**
+     * Spring will automatically inject an instance of UserImportService here.
+     */
+    @Autowired
+    private UserImportService userImportService;
+
     /**
      * This method handles POST requests to "/api/users".
      * It creates a new user.
@@ -37,6 +52,19 @@ public class UserController {
         return convertToDto(createdUser);
     }
 
+    /**
+     * This method handles POST requests to "/api/users/import". It is restricted to administrators.
+     * It imports users from a newline-delimited JSON body (one User per line, with a clear text password).
+     * The body is streamed, so the import size is not limited by memory.
+     * @param request The HTTP request, whose body is read as a stream.
+     * @return an ImportReport with the counts, the records that were not imported and throughput metrics.
+     * @throws IOException if the body cannot be read or is not valid JSON.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importUsers(HttpServletRequest request) throws IOException {
+        return userImportService.importUsers(request.getInputStream());
+    }
+
     /**
      * This is a helper method to convert a User object to a UserDto object.
      * This is important to avoid exposing sensitive information like the password.
@@ -1,22 +1,48 @@
 package com.letsplay.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * This class is a Data Transfer Object (DTO) used for authentication responses.
- * It carries the JWT (JSON Web Token) back to the client after a successful login.
+ * It carries the JWT (JSON Web Token) back to the client after a successful login or refresh,
+ * together with the refresh token to use once the JWT expires.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class AuthResponse {
 
     /**
-     * The generated JWT.
+     * The generated JWT (the access token).
      */
     private final String jwt;
 
     /**
-     * Constructor for AuthResponse.
+     * The refresh token. It can be used once, to get a new JWT and a new refresh token.
+     */
+    private final String refreshToken;
+
+    /**
+     * The lifetime of the JWT, in seconds.
+     */
+    private final Long expiresIn;
+
+    /**
+     * Constructor for AuthResponse, without a refresh token.
      * @param jwt The generated JWT.
      */
     public AuthResponse(String jwt) {
+        this(jwt, null, null);
+    }
+
+    /**
+     * Constructor for AuthResponse.
+     * @param jwt The generated JWT.
+     * @param refreshToken The refresh token.
+     * @param expiresIn The lifetime of the JWT, in seconds.
+     */
+    public AuthResponse(String jwt, String refreshToken, Long expiresIn) {
         this.jwt = jwt;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
     }
 
     /**
@@ -26,4 +52,20 @@ public class AuthResponse {
     public String getJwt() {
         return jwt;
     }
+
+    /**
+     * Gets the refresh token.
+     * @return the refresh token.
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * Gets the lifetime of the JWT.
+     * @return the lifetime, in seconds.
+     */
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
 }
@@ -0,0 +1,74 @@
+package com.letsplay.dto;
+
+/**
+ * This class is a Data Transfer Object (DTO) for the outcome of one item of a bulk request.
+ * Items are reported in the order of the request, and index is the position of the item in the request.
+ */
+public class BulkItemResult {
+
+    /**
+     * The position of the item in the request.
+     */
+    private final int index;
+
+    /**
+     * The ID of the resource the item applied to, if known.
+     */
+    private final String id;
+
+    /**
+     * The outcome of the item, e.g. "CREATED", "UPDATED", "DELETED", "NOT_FOUND", "FORBIDDEN", "INVALID" or "FAILED".
+     */
+    private final String status;
+
+    /**
+     * A description of the error, or null if the item succeeded.
+     */
+    private final String error;
+
+    /**
+     * Constructor for BulkItemResult.
+     * @param index The position of the item in the request.
+     * @param id The ID of the resource the item applied to, if known.
+     * @param status The outcome of the item.
+     * @param error A description of the error, or null if the item succeeded.
+     */
+    public BulkItemResult(int index, String id, String status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    /**
+     * Gets the position of the item in the request.
+     * @return the index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the ID of the resource the item applied to.
+     * @return the ID, or null if unknown.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the outcome of the item.
+     * @return the status.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the description of the error.
+     * @return the error, or null if the item succeeded.
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,116 @@
+package com.letsplay.dto;
+
+/**
+ * This class is a Data Transfer Object (DTO) for one operation of a bulk product request.
+ * An "upsert" creates the product (when it has no ID, or an ID that does not exist yet) or replaces its fields;
+ * a "delete" removes the product with the given ID.
+ */
+public class BulkProductOperation {
+
+    /**
+     * The action to perform: "upsert" or "delete".
+     */
+    private String action;
+
+    /**
+     * The ID of the product. Optional for an upsert that creates a new product, required for a delete.
+     */
+    private String id;
+
+    /**
+     * The name of the product (upsert only).
+     */
+    private String name;
+
+    /**
+     * The description of the product (upsert only).
+     */
+    private String description;
+
+    /**
+     * The price of the product (upsert only).
+     */
+    private Double price;
+
+    // Getters and Setters
+
+    /**
+     * Gets the action.
+     * @return the action, "upsert" or "delete".
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Sets the action.
+     * @param action the action, "upsert" or "delete".
+     */
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    /**
+     * Gets the product's ID.
+     * @return the product's ID.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the product's ID.
+     * @param id the product's ID.
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the product's name.
+     * @return the product's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the product's name.
+     * @param name the product's name.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the product's description.
+     * @return the product's description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the product's description.
+     * @param description the product's description.
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets the product's price.
+     * @return the product's price.
+     */
+    public Double getPrice() {
+        return price;
+    }
+
+    /**
+     * Sets the product's price.
+     * @param price the product's price.
+     */
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+}
@@ -0,0 +1,47 @@
+package com.letsplay.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a Data Transfer Object (DTO) for the report of a bulk request.
+ * It carries the number of items per status and the outcome of every item.
+ */
+public class BulkResponse {
+
+    /**
+     * The number of items per status.
+     */
+    private final Map<String, Long> counts;
+
+    /**
+     * The outcome of every item, in the order of the request.
+     */
+    private final List<BulkItemResult> items;
+
+    /**
+     * Constructor for BulkResponse.
+     * @param counts The number of items per status.
+     * @param items The outcome of every item.
+     */
+    public BulkResponse(Map<String, Long> counts, List<BulkItemResult> items) {
+        this.counts = counts;
+        this.items = items;
+    }
+
+    /**
+     * Gets the number of items per status.
+     * @return a Map from status to count.
+     */
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    /**
+     * Gets the outcome of every item.
+     * @return the list of item results.
+     */
+    public List<BulkItemResult> getItems() {
+        return items;
+    }
+}
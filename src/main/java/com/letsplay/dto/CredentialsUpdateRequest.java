@@ -0,0 +1,52 @@
+package com.letsplay.dto;
+
+/**
+ * This class is a Data Transfer Object (DTO) used by administrators to change the credentials of a user.
+ * Fields left null are not changed.
+ */
+public class CredentialsUpdateRequest {
+
+    /**
+     * The new password (in plain text), or null.
+     */
+    private String password;
+
+    /**
+     * The new role, e.g., "ADMIN" or "USER", or null.
+     */
+    private String role;
+
+    // Getters and Setters
+
+    /**
+     * Gets the new password.
+     * @return the new password, or null.
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Sets the new password.
+     * @param password the new password.
+     */
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * Gets the new role.
+     * @return the new role, or null.
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Sets the new role.
+     * @param role the new role.
+     */
+    public void setRole(String role) {
+        this.role = role;
+    }
+}
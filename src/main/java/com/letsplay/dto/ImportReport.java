@@ -0,0 +1,118 @@
+package com.letsplay.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a Data Transfer Object (DTO) for the report of a bulk import.
+ * Only the records that were not imported are listed one by one, up to users.import.max-reported-failures;
+ * the others are only counted.
+ */
+public class ImportReport {
+
+    /**
+     * The number of records per status.
+     */
+    private final Map<String, Long> counts;
+
+    /**
+     * The records that were not imported (duplicates, invalid records, failures).
+     */
+    private final List<BulkItemResult> failures;
+
+    /**
+     * The total duration of the import, in milliseconds.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * The time spent waiting for the password hashing, in milliseconds.
+     */
+    private final long hashMillis;
+
+    /**
+     * The time spent in the batched inserts, in milliseconds.
+     */
+    private final long insertMillis;
+
+    /**
+     * The degree of parallelism used for the password hashing.
+     */
+    private final int parallelism;
+
+    /**
+     * Constructor for ImportReport.
+     * @param counts The number of records per status.
+     * @param failures The records that were not imported.
+     * @param elapsedMillis The total duration of the import, in milliseconds.
+     * @param hashMillis The time spent waiting for the password hashing, in milliseconds.
+     * @param insertMillis The time spent in the batched inserts, in milliseconds.
+     * @param parallelism The degree of parallelism used for the password hashing.
+     */
+    public ImportReport(Map<String, Long> counts, List<BulkItemResult> failures, long elapsedMillis,
+                        long hashMillis, long insertMillis, int parallelism) {
+        this.counts = counts;
+        this.failures = failures;
+        this.elapsedMillis = elapsedMillis;
+        this.hashMillis = hashMillis;
+        this.insertMillis = insertMillis;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets the number of records per status.
+     * @return a Map from status to count.
+     */
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    /**
+     * Gets the records that were not imported.
+     * @return the list of failed records.
+     */
+    public List<BulkItemResult> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets the total duration of the import.
+     * @return the duration, in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the time spent waiting for the password hashing.
+     * @return the duration, in milliseconds.
+     */
+    public long getHashMillis() {
+        return hashMillis;
+    }
+
+    /**
+     * Gets the time spent in the batched inserts.
+     * @return the duration, in milliseconds.
+     */
+    public long getInsertMillis() {
+        return insertMillis;
+    }
+
+    /**
+     * Gets the degree of parallelism used for the password hashing.
+     * @return the number of hashing threads.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Gets the throughput of the import.
+     * @return the number of records processed per second.
+     */
+    public double getRecordsPerSecond() {
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        return elapsedMillis == 0 ? total : total * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,48 @@
+package com.letsplay.dto;
+
+import com.letsplay.model.Product;
+
+import java.util.List;
+
+/**
+ * This class is a Data Transfer Object (DTO) for one page of the product listing.
+ * It carries the products of the page and an opaque cursor that the client sends back to get the next page.
+ */
+public class ProductPage {
+
+    /**
+     * The products of this page, in a stable order.
+     */
+    private final List<Product> items;
+
+    /**
+     * The cursor of the next page, or null if this is the last page.
+     */
+    private final String nextCursor;
+
+    /**
+     * Constructor for ProductPage.
+     * @param items The products of this page.
+     * @param nextCursor The cursor of the next page, or null if this is the last page.
+     */
+    public ProductPage(List<Product> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the products of this page.
+     * @return the list of products.
+     */
+    public List<Product> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor of the next page.
+     * @return the cursor, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.letsplay.dto;
+
+/**
+ * This class is a Data Transfer Object (DTO) used for refresh and logout requests.
+ * It carries the refresh token the client received with its last access token.
+ */
+public class RefreshRequest {
+
+    /**
+     * The refresh token.
+     */
+    private String refreshToken;
+
+    // Getters and Setters
+
+    /**
+     * Gets the refresh token from the request.
+     * @return the refresh token.
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * Sets the refresh token in the request.
+     * @param refreshToken the refresh token.
+     */
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -0,0 +1,123 @@
+package com.letsplay.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Date;
+
+/**
+ * This class is a Data Transfer Object (DTO) for a MongoDB command that exceeded the slow command threshold.
+ * The shape is the command with every value replaced by "?", so that no user data (e.g. emails) is kept.
+ * The plan is only captured for a sample of the slow commands, after the fact, and is null until then.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SlowCommand {
+
+    private final Date at;
+    private final String database;
+    private final String collection;
+    private final String command;
+    private final String shape;
+    private final double elapsedMillis;
+
+    /**
+     * The summary of the winning plan, e.g. "FETCH > IXSCAN {email: 1}". Set by the thread that runs the explain.
+     */
+    private volatile String plan;
+
+    /**
+     * The number of plans the query planner considered and rejected.
+     */
+    private volatile Integer rejectedPlans;
+
+    /**
+     * Constructor for SlowCommand.
+     * @param at The time the command completed.
+     * @param database The database of the command.
+     * @param collection The collection of the command.
+     * @param command The name of the command, e.g. "find" or "aggregate".
+     * @param shape The redacted filter (or pipeline) of the command, as JSON.
+     * @param elapsedMillis The time the command took, in milliseconds.
+     */
+    public SlowCommand(Date at, String database, String collection, String command, String shape, double elapsedMillis) {
+        this.at = at;
+        this.database = database;
+        this.collection = collection;
+        this.command = command;
+        this.shape = shape;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Gets the time the command completed.
+     * @return the time.
+     */
+    public Date getAt() {
+        return at;
+    }
+
+    /**
+     * Gets the database of the command.
+     * @return the database name.
+     */
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * Gets the collection of the command.
+     * @return the collection name.
+     */
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * Gets the name of the command.
+     * @return the command name.
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * Gets the redacted filter (or pipeline) of the command.
+     * @return the shape, as JSON.
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * Gets the time the command took.
+     * @return the time, in milliseconds.
+     */
+    public double getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the summary of the winning plan.
+     * @return the plan, or null if it was not captured (yet).
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    /**
+     * Gets the number of rejected plans.
+     * @return the number of rejected plans, or null if the plan was not captured (yet).
+     */
+    public Integer getRejectedPlans() {
+        return rejectedPlans;
+    }
+
+    /**
+     * Sets the captured plan.
+     * @param plan The summary of the winning plan.
+     * @param rejectedPlans The number of rejected plans.
+     */
+    public void setPlan(String plan, int rejectedPlans) {
+        this.rejectedPlans = rejectedPlans;
+        this.plan = plan;
+    }
+}
@@ -1,9 +1,12 @@
 package com.letsplay.exception;
 
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * This class is a global exception handler for the application.
@@ -12,6 +15,40 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * This method handles exceptions that already carry an HTTP status, such as a 400 for an invalid request parameter.
+     * Without it, they would be turned into a 500 by the generic handler below.
+     * @param e The exception that was thrown.
+     * @return a ResponseEntity with the status and reason of the exception.
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<String> handleResponseStatusException(ResponseStatusException e) {
+        return new ResponseEntity<>(e.getReason(), e.getStatusCode());
+    }
+
+    /**
+     * This method handles writes rejected by a unique index, such as a second user with the same email.
+     * @param e The exception that was thrown.
+     * @return a ResponseEntity with status 409 (Conflict).
+     */
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<String> handleDuplicateKeyException(DuplicateKeyException e) {
+        return new ResponseEntity<>("A resource with the same unique key already exists", HttpStatus.CONFLICT);
+    }
+
+    /**
+     * This method handles password operations rejected because the password hashing executor is saturated.
+     * The client is told to retry after a second, and no stack trace is printed, since this is expected under load.
+     * @param e The exception that was thrown.
+     * @return a ResponseEntity with status 503 (Service Unavailable) and a Retry-After header.
+     */
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<String> handlePasswordHashingBusyException(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
     /**
      * This method handles all exceptions of type Exception.class.
      * You can create more specific exception handlers for different types of exceptions.
@@ -0,0 +1,17 @@
+package com.letsplay.exception;
+
+/**
+ * This exception is thrown when a password cannot be hashed or verified because the password hashing executor
+ * is saturated (its queue is full, or the task waited too long). It is turned into a 503 (Service Unavailable)
+ * by GlobalExceptionHandler, so that a login storm is rejected quickly instead of using up every request thread.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    /**
+     * Constructor for PasswordHashingBusyException.
+     * @param message The detail message.
+     */
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
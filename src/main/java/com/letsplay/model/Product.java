@@ -1,14 +1,19 @@
 package com.letsplay.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
  * This class represents a Product in our application.
  * The @Document annotation tells Spring Data MongoDB that this class should be stored in a MongoDB collection.
  * The collection name is specified as "products".
+ * The @JsonInclude annotation leaves null fields out of the JSON, so that projected reads only send the selected fields.
  */
 @Document(collection = "products")
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Product {
 
     /**
@@ -30,15 +35,26 @@ public class Product {
 
     /**
      * This field stores the price of the product.
+     * It is indexed for price range queries and sorting.
      */
+    @Indexed(name = "price")
     private Double price;
 
     /**
      * This field stores the ID of the user who owns this product.
      * This creates a relationship between User and Product.
+     * It is indexed, since products are looked up by their owner.
      */
+    @Indexed(name = "userId")
     private String userId;
 
+    /**
+     * The @Version annotation makes Spring Data increment this field on every save, and use it for optimistic locking.
+     * It backs the per-product ETag of the product reads.
+     */
+    @Version
+    private Long version;
+
     // Getters and Setters
 
     /**
@@ -120,4 +136,20 @@ public class Product {
     public void setUserId(String userId) {
         this.userId = userId;
     }
+
+    /**
+     * Gets the product's version.
+     * @return the product's version.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the product's version.
+     * @param version the product's version.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,214 @@
+package com.letsplay.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * This class represents a refresh token in our application.
+ * The @Document annotation tells Spring Data MongoDB that this class should be stored in a MongoDB collection.
+ * The collection name is specified as "refresh_tokens".
+ * Only the SHA-256 hash of the token is stored, so a copy of the collection cannot be used to log in.
+ * Every refresh replaces the token with a new one of the same family; a token used twice revokes the whole family.
+ */
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+
+    /**
+     * The @Id annotation marks this field as the primary key for the documents in the collection.
+     * It will be automatically generated by MongoDB.
+     */
+    @Id
+    private String id;
+
+    /**
+     * This field stores the SHA-256 hash of the token, in hexadecimal. Every refresh looks it up.
+     */
+    @Indexed(name = "token_hash_unique", unique = true)
+    private String tokenHash;
+
+    /**
+     * This field stores the email of the user the token was issued to.
+     */
+    private String email;
+
+    /**
+     * This field stores the ID of the token family: the first token issued at login and all the tokens it was rotated into.
+     */
+    @Indexed(name = "family_id")
+    private String familyId;
+
+    /**
+     * This field stores the ID (jti) of the access token issued together with this token.
+     */
+    private String accessTokenId;
+
+    /**
+     * This field stores the expiration date of that access token.
+     */
+    private Date accessTokenExpiresAt;
+
+    /**
+     * This field stores the expiration date of the token. MongoDB deletes the document once it is reached.
+     */
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    private Date expiresAt;
+
+    /**
+     * This field is true once the token was rotated into a new one.
+     */
+    private boolean used;
+
+    /**
+     * This field is true once the token family was revoked, by a logout or because a used token was presented again.
+     */
+    private boolean revoked;
+
+    // Getters and Setters
+
+    /**
+     * Gets the token's ID.
+     * @return the token's ID.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the token's ID.
+     * @param id the token's ID.
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the token.
+     * @return the hash, in hexadecimal.
+     */
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    /**
+     * Sets the SHA-256 hash of the token.
+     * @param tokenHash the hash, in hexadecimal.
+     */
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    /**
+     * Gets the email of the user.
+     * @return the user's email.
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Sets the email of the user.
+     * @param email the user's email.
+     */
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    /**
+     * Gets the ID of the token family.
+     * @return the family ID.
+     */
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    /**
+     * Sets the ID of the token family.
+     * @param familyId the family ID.
+     */
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    /**
+     * Gets the ID of the access token issued with this token.
+     * @return the access token's jti.
+     */
+    public String getAccessTokenId() {
+        return accessTokenId;
+    }
+
+    /**
+     * Sets the ID of the access token issued with this token.
+     * @param accessTokenId the access token's jti.
+     */
+    public void setAccessTokenId(String accessTokenId) {
+        this.accessTokenId = accessTokenId;
+    }
+
+    /**
+     * Gets the expiration date of the access token issued with this token.
+     * @return the access token's expiration date.
+     */
+    public Date getAccessTokenExpiresAt() {
+        return accessTokenExpiresAt;
+    }
+
+    /**
+     * Sets the expiration date of the access token issued with this token.
+     * @param accessTokenExpiresAt the access token's expiration date.
+     */
+    public void setAccessTokenExpiresAt(Date accessTokenExpiresAt) {
+        this.accessTokenExpiresAt = accessTokenExpiresAt;
+    }
+
+    /**
+     * Gets the expiration date of the token.
+     * @return the token's expiration date.
+     */
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Sets the expiration date of the token.
+     * @param expiresAt the token's expiration date.
+     */
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Checks whether the token was already rotated.
+     * @return true if the token was used.
+     */
+    public boolean isUsed() {
+        return used;
+    }
+
+    /**
+     * Sets whether the token was already rotated.
+     * @param used true if the token was used.
+     */
+    public void setUsed(boolean used) {
+        this.used = used;
+    }
+
+    /**
+     * Checks whether the token family was revoked.
+     * @return true if the token is revoked.
+     */
+    public boolean isRevoked() {
+        return revoked;
+    }
+
+    /**
+     * Sets whether the token family was revoked.
+     * @param revoked true if the token is revoked.
+     */
+    public void setRevoked(boolean revoked) {
+        this.revoked = revoked;
+    }
+}
@@ -0,0 +1,78 @@
+package com.letsplay.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * This class represents a revoked access token in our application.
+ * The @Document annotation tells Spring Data MongoDB that this class should be stored in a MongoDB collection.
+ * The collection name is specified as "revoked_tokens".
+ * The documents are only read at startup, to rebuild the in-memory TokenRevocationList; requests never query them.
+ */
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+
+    /**
+     * The ID (jti) of the revoked access token.
+     */
+    @Id
+    private String id;
+
+    /**
+     * This field stores the expiration date of the access token. After it, the revocation is useless,
+     * so MongoDB deletes the document.
+     */
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    private Date expiresAt;
+
+    /**
+     * Default constructor, used by Spring Data.
+     */
+    public RevokedToken() {
+    }
+
+    /**
+     * Constructor for RevokedToken.
+     * @param id The ID (jti) of the revoked access token.
+     * @param expiresAt The expiration date of the access token.
+     */
+    public RevokedToken(String id, Date expiresAt) {
+        this.id = id;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the ID (jti) of the revoked access token.
+     * @return the jti.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID (jti) of the revoked access token.
+     * @param id the jti.
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the expiration date of the access token.
+     * @return the expiration date.
+     */
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Sets the expiration date of the access token.
+     * @param expiresAt the expiration date.
+     */
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,6 +1,7 @@
 package com.letsplay.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -24,8 +25,10 @@ public class User {
     private String name;
 
     /**
-     * This field stores the email of the user. It should be unique.
+     * This field stores the email of the user. It must be unique.
+     * It is the key of every findByEmail call, so it is backed by a unique index (created by MongoIndexInitializer).
      */
+    @Indexed(name = "email_unique", unique = true)
     private String email;
 
     /**
@@ -39,6 +42,13 @@ public class User {
      */
     private String role;
 
+    /**
+     * This field stores the version of the user's security data (password, role, email).
+     * It is embedded in every JWT, and it should be incremented whenever that data changes,
+     * so that tokens issued before the change can be recognized as stale.
+     */
+    private long tokenVersion;
+
     // Getters and Setters
 
     /**
@@ -120,4 +130,20 @@ public class User {
     public void setRole(String role) {
         this.role = role;
     }
+
+    /**
+     * Gets the user's token version.
+     * @return the user's token version.
+     */
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * Sets the user's token version.
+     * @param tokenVersion the user's token version.
+     */
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
 }
@@ -3,11 +3,22 @@ package com.letsplay.repository;
 import com.letsplay.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.List;
+
 /**
  * This interface is a Spring Data repository for the Product entity.
  * MongoRepository provides all the necessary methods to perform CRUD (Create, Read, Update, Delete) operations.
  * We are extending MongoRepository<Product, String> where Product is the domain class and String is the type of the ID.
  */
 public interface ProductRepository extends MongoRepository<Product, String> {
-    // We can add custom query methods here if needed in the future.
+
+    /**
+     * This method will find all the products of a user.
+     * Spring Data MongoDB will automatically implement this method based on its name.
+     * It is backed by the index on userId.
+     *
+     * @param userId The ID of the user who owns the products.
+     * @return the list of the user's products.
+     */
+    List<Product> findByUserId(String userId);
 }
@@ -0,0 +1,11 @@
+package com.letsplay.repository;
+
+import com.letsplay.model.Product;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * This interface is the reactive counterpart of ProductRepository, used by the "reactive" profile.
+ * ReactiveMongoRepository provides non-blocking CRUD operations that return Mono and Flux instead of values.
+ */
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+}
@@ -0,0 +1,19 @@
+package com.letsplay.repository;
+
+import com.letsplay.model.User;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * This interface is the reactive counterpart of UserRepository, used by the "reactive" profile.
+ * ReactiveMongoRepository provides non-blocking CRUD operations that return Mono and Flux instead of values.
+ */
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+
+    /**
+     * This method will find a User by their email, without blocking the calling thread.
+     * @param email The email of the user to find.
+     * @return a Mono emitting the user if found, or completing empty otherwise.
+     */
+    Mono<User> findByEmail(String email);
+}
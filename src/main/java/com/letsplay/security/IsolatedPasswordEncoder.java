@@ -0,0 +1,59 @@
+package com.letsplay.security;
+
+import com.letsplay.timing.RequestTiming;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * IsolatedPasswordEncoder is a PasswordEncoder that runs the work of another PasswordEncoder
+ * on the PasswordHashingExecutor, instead of on the calling (request) thread.
+ * The time the request waits for it, queueing included, is counted in the bcrypt phase of the request timing.
+ */
+public class IsolatedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    /**
+     * Constructor for IsolatedPasswordEncoder. Use PasswordHashingExecutor.wrap to create one.
+     * @param delegate The PasswordEncoder doing the actual hashing.
+     * @param executor The executor to run it on.
+     */
+    IsolatedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the wrapped PasswordEncoder. Batch jobs that have their own bounded pool (such as the user import)
+     * use it directly, so that they never compete with logins for the executor.
+     * @return the wrapped PasswordEncoder.
+     */
+    public PasswordEncoder getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = RequestTiming.start(RequestTiming.Phase.BCRYPT);
+        try {
+            return executor.execute(() -> delegate.encode(rawPassword));
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.BCRYPT, start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = RequestTiming.start(RequestTiming.Phase.BCRYPT);
+        try {
+            return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.BCRYPT, start);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
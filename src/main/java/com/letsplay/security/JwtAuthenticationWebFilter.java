@@ -0,0 +1,102 @@
+package com.letsplay.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * JwtAuthenticationWebFilter is the reactive counterpart of JwtRequestFilter, used by the "reactive" profile.
+ * It extracts the JWT from the Authorization header, validates it, and puts the authentication
+ * in the reactive security context of the exchange.
+ * <p>
+ * It is deliberately not a bean: WebFlux would register a WebFilter bean for every request, in addition to
+ * the security chain, and the token would be validated twice. ReactiveSecurityConfig creates it instead.
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    private final ReactiveUserDetailsServiceImpl userDetailsService;
+    private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    /**
+     * When true, the principal is built from the verified JWT claims instead of being loaded from the database.
+     */
+    private final boolean stateless;
+
+    /**
+     * Constructor for JwtAuthenticationWebFilter.
+     * @param userDetailsService The service loading the users.
+     * @param jwtUtil The JWT utility.
+     * @param tokenVersionRegistry The registry of the users whose tokens were invalidated.
+     * @param stateless Whether the principal is built from the verified JWT claims.
+     */
+    public JwtAuthenticationWebFilter(ReactiveUserDetailsServiceImpl userDetailsService, JwtUtil jwtUtil,
+                                      TokenVersionRegistry tokenVersionRegistry, boolean stateless) {
+        this.userDetailsService = userDetailsService;
+        this.jwtUtil = jwtUtil;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.stateless = stateless;
+    }
+
+    /**
+     * This method is executed for every incoming request.
+     * Verifying the token is pure CPU work (and usually a cache hit), so it runs on the event loop;
+     * only the optional user lookup goes to MongoDB, without blocking.
+     * @param exchange The current server exchange.
+     * @param chain The filter chain to proceed with.
+     * @return a Mono that completes when the rest of the chain has completed.
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String authorizationHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        Claims claims = jwtUtil.validateAndGetClaims(authorizationHeader.substring(7));
+        if (claims == null || claims.getSubject() == null) {
+            return chain.filter(exchange);
+        }
+
+        return resolveUserDetails(claims)
+                .filter(userDetails -> jwtUtil.validateClaims(claims, userDetails))
+                .map(userDetails -> Optional.of(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities())))
+                // The chain itself completes empty, so the "no authentication" case is resolved before calling it,
+                // to make sure the chain runs exactly once.
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authentication -> authentication
+                        .map(value -> chain.filter(exchange)
+                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(value)))
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+
+    /**
+     * Resolves the user a set of verified claims belongs to, following the same rules as JwtRequestFilter.
+     * @param claims The verified claims of the JWT.
+     * @return a Mono emitting the UserDetails of the user, or completing empty if the token must be rejected.
+     */
+    private Mono<UserDetails> resolveUserDetails(Claims claims) {
+        String username = claims.getSubject();
+        if (stateless) {
+            long tokenVersion = jwtUtil.getTokenVersion(claims);
+            if (!tokenVersionRegistry.isStale(username, tokenVersion)) {
+                UserPrincipal principal = jwtUtil.buildPrincipal(claims);
+                if (principal != null) {
+                    return Mono.just(principal);
+                }
+            }
+            return userDetailsService.findByUsername(username)
+                    .filter(userDetails -> !(userDetails instanceof UserPrincipal principal)
+                            || principal.getTokenVersion() == tokenVersion);
+        }
+        return userDetailsService.findByUsername(username);
+    }
+}
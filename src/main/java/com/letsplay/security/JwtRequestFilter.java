@@ -1,10 +1,13 @@
 package com.letsplay.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,8 +21,10 @@ import java.io.IOException;
  * JwtRequestFilter is a custom filter that intercepts every incoming request.
  * It extracts the JWT from the Authorization header, validates it, and sets the authentication
  * in the SecurityContext, so that Spring Security knows who the authenticated user is.
+ * It is only active in the blocking (servlet) stack; the "reactive" profile replaces it with a WebFlux equivalent.
  */
 @Component
+@Profile("!reactive")
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     /**
@@ -36,6 +41,20 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    /**
+     * Spring will automatically inject an instance of TokenVersionRegistry here.
+     * It tells us which users changed since their token was issued.
+     */
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    /**
+     * When true, the principal is built from the verified JWT claims instead of being loaded from the database.
+     * The database is then only consulted when the token version claim shows that the user changed.
+     */
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
+
     /**
      * This method is executed for every incoming request.
      * It checks for a JWT in the Authorization header, validates it, and sets up the security context.
@@ -51,22 +70,23 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        Claims claims = null;
 
         // Check if the Authorization header exists and starts with "Bearer ".
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7); // Extract the JWT token (remove "Bearer ")
-            username = jwtUtil.extractUsername(jwt);
+            String jwt = authorizationHeader.substring(7); // Extract the JWT token (remove "Bearer ")
+            // Verify and parse the token once; everything below reads from these claims.
+            claims = jwtUtil.validateAndGetClaims(jwt);
         }
 
-        // If a username is extracted and no authentication is currently set in the SecurityContext,
-        // then validate the token and set the authentication.
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // If the token is valid and no authentication is currently set in the SecurityContext,
+        // then load the user and set the authentication.
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = resolveUserDetails(claims);
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null && jwtUtil.validateClaims(claims, userDetails)) {
 
                 // Create an authentication token.
                 // The authorities are currently empty, they should be populated based on the user's roles.
@@ -81,4 +101,32 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // Continue with the filter chain.
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Resolves the user a set of verified claims belongs to.
+     * In stateless mode the principal is built from the claims, and the user is only loaded from the database
+     * when the token version shows that the user changed; in that case a token with an outdated version is rejected.
+     * Otherwise the user is always loaded from the database.
+     * @param claims The verified claims of the JWT.
+     * @return the UserDetails of the user, or null if the token must be rejected.
+     */
+    private UserDetails resolveUserDetails(Claims claims) {
+        if (stateless) {
+            String username = claims.getSubject();
+            long tokenVersion = jwtUtil.getTokenVersion(claims);
+            if (!tokenVersionRegistry.isStale(username, tokenVersion)) {
+                UserPrincipal principal = jwtUtil.buildPrincipal(claims);
+                if (principal != null) {
+                    return principal;
+                }
+            }
+            // The user changed (or the token predates the embedded claims), so check against the database.
+            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            if (userDetails instanceof UserPrincipal principal && principal.getTokenVersion() != tokenVersion) {
+                return null;
+            }
+            return userDetails;
+        }
+        return this.userDetailsService.loadUserByUsername(claims.getSubject());
+    }
 }
@@ -1,17 +1,30 @@
 package com.letsplay.security;
 
+import com.letsplay.timing.RequestTiming;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -26,6 +39,101 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
+    // Lifetime of the access tokens. They cannot be refreshed in place, so it is kept short;
+    // clients get a new one with their refresh token (see RefreshTokenService).
+    @Value("${jwt.access-token-ttl-seconds:900}")
+    private long accessTokenTtlSeconds;
+
+    // Names of the custom claims embedded in every token.
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
+    /**
+     * The signing key, decoded from SECRET_KEY once at startup instead of on every call.
+     */
+    private SecretKey signingKey;
+
+    /**
+     * The JWT parser, built once at startup. JwtParser instances are immutable and thread-safe,
+     * so a single instance can be shared by all requests.
+     */
+    private JwtParser jwtParser;
+
+    /**
+     * Spring will automatically inject an instance of VerifiedTokenCache here.
+     * It lets repeat tokens skip the signature verification.
+     */
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Spring will automatically inject an instance of TokenRevocationList here.
+     * It tells, without a database call, whether a token was revoked (e.g., by a logout).
+     */
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * Spring will automatically inject the application's MeterRegistry here.
+     * It exposes the time spent generating and validating tokens (jwt.generate and jwt.validate).
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer generateTimer;
+    private Timer validTimer;
+    private Timer invalidTimer;
+    private Timer revokedTimer;
+
+    /**
+     * Builds the signing key, the parser and the timers once the secret has been injected.
+     */
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+
+        this.generateTimer = Timer.builder("jwt.generate")
+                .description("Time to create and sign an access token")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.validTimer = validationTimer("valid");
+        this.invalidTimer = validationTimer("invalid");
+        this.revokedTimer = validationTimer("revoked");
+    }
+
+    /**
+     * Verifies the signature and expiration of a JWT and returns its claims.
+     * The token is parsed exactly once, so callers should read the subject, expiration
+     * and any other claims from the returned object instead of calling the extract methods again.
+     * Tokens that were already verified are served from the VerifiedTokenCache until they expire.
+     * The revocation check comes after the cache, so that a token revoked after its first use is rejected too.
+     * @param token The JWT to validate.
+     * @return The verified claims, or null if the token is malformed, badly signed, expired or revoked.
+     */
+    public Claims validateAndGetClaims(String token) {
+        long start = System.nanoTime();
+        Claims claims;
+        try {
+            // parseSignedClaims already rejects expired tokens with an ExpiredJwtException,
+            // and the cache drops each entry at the token's expiration time.
+            claims = verifiedTokenCache.get(token, this::extractAllClaims);
+        } catch (JwtException | IllegalArgumentException e) {
+            recordValidation(invalidTimer, start);
+            return null;
+        }
+        if (tokenRevocationList.isRevoked(claims.getId())) {
+            recordValidation(revokedTimer, start);
+            return null;
+        }
+        recordValidation(validTimer, start);
+        return claims;
+    }
+
     /**
      * Extracts the username (subject) from a JWT.
      * @param token The JWT to extract the username from.
@@ -62,23 +170,12 @@ public class JwtUtil {
      * @return All claims.
      */
     private Claims extractAllClaims(String token) {
-        // The modern jjwt API uses a parser instance.
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        // The modern jjwt API uses a parser instance, which we build once in init().
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    /**
-     * Checks if the JWT is expired.
-     * @param token The JWT.
-     * @return true if the token is expired, false otherwise.
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     /**
      * Validates a JWT with a UserDetails object.
      * @param token The JWT to validate.
@@ -86,42 +183,124 @@ public class JwtUtil {
      * @return true if the token is valid, false otherwise.
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = validateAndGetClaims(token);
+        return claims != null && validateClaims(claims, userDetails);
+    }
+
+    /**
+     * Validates already verified claims against a UserDetails object, without parsing the token again.
+     * @param claims The claims returned by validateAndGetClaims.
+     * @param userDetails The UserDetails object containing user information.
+     * @return true if the claims belong to the user and are not expired, false otherwise.
+     */
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
+    }
+
+    /**
+     * Builds a UserPrincipal from verified claims, without loading the user from the database.
+     * @param claims The claims returned by validateAndGetClaims.
+     * @return the UserPrincipal, or null if the token does not carry the user's ID and role.
+     */
+    public UserPrincipal buildPrincipal(Claims claims) {
+        String id = claims.get(CLAIM_USER_ID, String.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (id == null || role == null) {
+            // Tokens issued before these claims existed cannot be trusted on their own.
+            return null;
+        }
+        // Spring Security expects roles to start with "ROLE_", so we prefix it.
+        List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+        return new UserPrincipal(id, claims.getSubject(), "", role, getTokenVersion(claims), authorities);
+    }
+
+    /**
+     * Gets the token version from verified claims.
+     * @param claims The claims returned by validateAndGetClaims.
+     * @return the token version, or 0 if the token does not carry one.
+     */
+    public long getTokenVersion(Claims claims) {
+        Number version = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        return version != null ? version.longValue() : 0L;
     }
 
     /**
-     * Generates a JWT for a given UserDetails object.
+     * Gets the lifetime of the access tokens.
+     * @return the lifetime, in seconds.
+     */
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtlSeconds;
+    }
+
+    /**
+     * Generates an access token for a given UserDetails object, with a random ID and the configured lifetime.
      * @param userDetails The UserDetails object for which to generate the token.
      * @return The generated JWT.
      */
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, UUID.randomUUID().toString(),
+                new Date(System.currentTimeMillis() + accessTokenTtlSeconds * 1000));
+    }
+
+    /**
+     * Generates an access token for a given UserDetails object.
+     * @param userDetails The UserDetails object for which to generate the token.
+     * @param tokenId The ID (jti) of the token, which is what TokenRevocationList revokes.
+     * @param expiration The expiration date of the token.
+     * @return The generated JWT.
+     */
+    public String generateToken(UserDetails userDetails, String tokenId, Date expiration) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        // Embed the user's ID, role and token version, so that the principal can be rebuilt
+        // from the token alone when stateless authentication is enabled.
+        if (userDetails instanceof UserPrincipal principal) {
+            claims.put(CLAIM_USER_ID, principal.getId());
+            claims.put(CLAIM_ROLE, principal.getRole());
+            claims.put(CLAIM_TOKEN_VERSION, principal.getTokenVersion());
+        }
+        return generateTimer.record(() -> createToken(claims, userDetails.getUsername(), tokenId, expiration));
+    }
+
+    /**
+     * This is a helper method that registers the jwt.validate timer of one validation result.
+     * @param result The result tag: valid, invalid (malformed, badly signed or expired) or revoked.
+     * @return the Timer.
+     */
+    private Timer validationTimer(String result) {
+        return Timer.builder("jwt.validate")
+                .description("Time to validate an access token, including the verified token cache and the revocation check")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * This is a helper method that records the time of a validation in its timer and in the request timing.
+     * @param timer The jwt.validate timer of the result.
+     * @param start The start time of the validation, from System.nanoTime().
+     */
+    private void recordValidation(Timer timer, long start) {
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTiming.add(RequestTiming.Phase.JWT, elapsed);
     }
 
     /**
      * Creates the JWT.
      * @param claims The claims to include in the JWT.
      * @param subject The subject of the JWT (typically the username).
+     * @param tokenId The ID (jti) of the JWT.
+     * @param expiration The expiration date of the JWT.
      * @return The created JWT.
      */
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, String tokenId, Date expiration) {
         return Jwts.builder()
                 .claims(claims)
+                .id(tokenId)
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours expiration
-                .signWith(getSigningKey())
+                .expiration(expiration)
+                .signWith(signingKey)
                 .compact();
     }
-
-    /**
-     * Gets the signing key from the secret key.
-     * @return The signing key.
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
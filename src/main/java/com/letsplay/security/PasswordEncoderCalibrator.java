@@ -0,0 +1,125 @@
+package com.letsplay.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * PasswordEncoderCalibrator chooses the BCrypt cost (strength) of the application at startup.
+ * <p>
+ * Unless a strength is configured, it measures how long a hash takes on the current hardware, and picks the highest
+ * strength whose hash time fits within the target login latency budget (never below the configured minimum).
+ * Each strength step doubles the hash time, so a short measurement at a low strength is enough to extrapolate.
+ * <p>
+ * The encoder it creates is a DelegatingPasswordEncoder, which stores hashes as "{bcrypt}$2a$...". Hashes stored
+ * before it existed (without the prefix) still match, and any hash without the prefix or with a lower strength
+ * reports upgradeEncoding() == true, so it is re-hashed the next time the user logs in.
+ */
+@Component
+public class PasswordEncoderCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderCalibrator.class);
+
+    /**
+     * The ID of BCrypt in the DelegatingPasswordEncoder.
+     */
+    private static final String BCRYPT_ID = "bcrypt";
+
+    /**
+     * The strength the measurement is made at.
+     */
+    private static final int PROBE_STRENGTH = 8;
+
+    /**
+     * The chosen BCrypt strength.
+     */
+    private final int strength;
+
+    /**
+     * The measured time of one hash at the chosen strength, in milliseconds.
+     */
+    private final double measuredHashMillis;
+
+    /**
+     * Constructor for PasswordEncoderCalibrator. The calibration runs here, once, at startup.
+     * @param configuredStrength A fixed BCrypt strength, or 0 to calibrate.
+     * @param targetMillis The target time of one hash, in milliseconds.
+     * @param minStrength The lowest strength calibration may choose.
+     * @param maxStrength The highest strength calibration may choose.
+     */
+    public PasswordEncoderCalibrator(@Value("${security.password-hashing.bcrypt-strength:0}") int configuredStrength,
+                                     @Value("${security.password-hashing.target-millis:250}") long targetMillis,
+                                     @Value("${security.password-hashing.min-strength:10}") int minStrength,
+                                     @Value("${security.password-hashing.max-strength:16}") int maxStrength) {
+        if (configuredStrength > 0) {
+            this.strength = configuredStrength;
+        } else {
+            double probeMillis = measure(PROBE_STRENGTH, 5);
+            int chosen = minStrength;
+            // Each strength step doubles the work.
+            while (chosen < maxStrength && probeMillis * Math.pow(2, chosen + 1 - PROBE_STRENGTH) <= targetMillis) {
+                chosen++;
+            }
+            this.strength = chosen;
+        }
+        this.measuredHashMillis = measure(strength, 1);
+        logger.info("BCrypt strength {} ({}), measured {} ms per hash", strength,
+                configuredStrength > 0 ? "configured" : "calibrated for a " + targetMillis + " ms target",
+                String.format("%.1f", measuredHashMillis));
+    }
+
+    /**
+     * Creates the PasswordEncoder of the application: a DelegatingPasswordEncoder that hashes with BCrypt
+     * at the chosen strength, and matches legacy hashes without an algorithm prefix as BCrypt.
+     * @return a new PasswordEncoder.
+     */
+    public PasswordEncoder createEncoder() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * Gets the chosen BCrypt strength.
+     * @return the strength.
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Gets the measured time of one hash at the chosen strength.
+     * @return the time, in milliseconds.
+     */
+    public double getMeasuredHashMillis() {
+        return measuredHashMillis;
+    }
+
+    /**
+     * This is a helper method that measures the median time of a BCrypt hash at a strength.
+     * One extra hash is made first to warm up the code.
+     * @param strength The BCrypt strength.
+     * @param samples The number of hashes to measure.
+     * @return the median time of one hash, in milliseconds.
+     */
+    private static double measure(int strength, int samples) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode("calibration-warmup");
+        double[] millis = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration-password-" + i);
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[samples / 2];
+    }
+}
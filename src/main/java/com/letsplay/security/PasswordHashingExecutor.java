@@ -0,0 +1,151 @@
+package com.letsplay.security;
+
+import com.letsplay.exception.PasswordHashingBusyException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PasswordHashingExecutor runs the CPU-heavy password work (BCrypt hashing at sign-up, BCrypt verification at login)
+ * on a dedicated, bounded thread pool instead of on the request threads.
+ * <p>
+ * The pool has a fixed number of threads and a bounded queue. When the queue is full, or when a task waits longer
+ * than the configured timeout, the request fails right away with a PasswordHashingBusyException (503), so a login
+ * spike only degrades login and sign-up, while cheap reads keep their CPU and their request threads.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMillis;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0L);
+    private final AtomicLong lastHashNanos = new AtomicLong();
+
+    /**
+     * Constructor for PasswordHashingExecutor.
+     * @param configuredThreads The number of hashing threads, or 0 to use half of the available cores (at least one).
+     * @param queueCapacity The number of tasks that may wait for a thread before new tasks are rejected.
+     * @param timeoutMillis The longest time a request waits for its password task before giving up.
+     */
+    public PasswordHashingExecutor(@Value("${security.password-hashing.threads:0}") int configuredThreads,
+                                   @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.password-hashing.timeout-ms:5000}") long timeoutMillis) {
+        int threads = configuredThreads > 0 ? configuredThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Stops the pool when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Wraps a PasswordEncoder so that all of its work runs on this executor.
+     * @param delegate The PasswordEncoder doing the actual hashing.
+     * @return the wrapping PasswordEncoder.
+     */
+    public IsolatedPasswordEncoder wrap(PasswordEncoder delegate) {
+        return new IsolatedPasswordEncoder(delegate, this);
+    }
+
+    /**
+     * Runs a password task on the pool and waits for its result.
+     * @param task The password task.
+     * @param <T> The type of the result.
+     * @return the result of the task.
+     * @throws PasswordHashingBusyException if the queue is full or the task took too long.
+     */
+    public <T> T execute(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                long start = System.nanoTime();
+                totalQueueNanos.add(start - submitted);
+                try {
+                    return task.call();
+                } finally {
+                    long duration = System.nanoTime() - start;
+                    totalHashNanos.add(duration);
+                    maxHashNanos.accumulate(duration);
+                    lastHashNanos.set(duration);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many concurrent password operations, please retry later");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new PasswordHashingBusyException("Password operation timed out, please retry later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for a password operation");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password operation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Gets the counters of the executor: queue depth, active threads, rejections and hash latency.
+     * @return a Map of metric names to values.
+     */
+    public Map<String, Object> getMetrics() {
+        long count = completed.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("threads", pool.getMaximumPoolSize());
+        metrics.put("activeThreads", pool.getActiveCount());
+        metrics.put("queueDepth", pool.getQueue().size());
+        metrics.put("queueCapacity", pool.getQueue().size() + pool.getQueue().remainingCapacity());
+        metrics.put("completed", count);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("averageHashMillis", count == 0 ? 0.0 : totalHashNanos.sum() / 1e6 / count);
+        metrics.put("maxHashMillis", maxHashNanos.get() / 1e6);
+        metrics.put("lastHashMillis", lastHashNanos.get() / 1e6);
+        metrics.put("averageQueueWaitMillis", count == 0 ? 0.0 : totalQueueNanos.sum() / 1e6 / count);
+        return metrics;
+    }
+}
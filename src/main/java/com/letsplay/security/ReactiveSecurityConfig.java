@@ -0,0 +1,144 @@
+package com.letsplay.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * This class is the reactive counterpart of SecurityConfig. It is only active with the "reactive" profile,
+ * which also switches the application to WebFlux (see application-reactive.properties).
+ * The access rules are the same as in SecurityConfig, so that both stacks expose the same API contract.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@Profile("reactive")
+public class ReactiveSecurityConfig {
+
+    private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final ReactiveUserDetailsServiceImpl userDetailsService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final PasswordEncoderCalibrator passwordEncoderCalibrator;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * When true, the JWT filter builds the principal from the verified claims instead of loading the user.
+     */
+    private final boolean stateless;
+
+    public ReactiveSecurityConfig(JwtUtil jwtUtil,
+                                  TokenVersionRegistry tokenVersionRegistry,
+                                  ReactiveUserDetailsServiceImpl userDetailsService,
+                                  PasswordHashingExecutor passwordHashingExecutor,
+                                  PasswordEncoderCalibrator passwordEncoderCalibrator,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jwt.stateless:false}") boolean stateless) {
+        this.jwtUtil = jwtUtil;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userDetailsService = userDetailsService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.passwordEncoderCalibrator = passwordEncoderCalibrator;
+        this.meterRegistry = meterRegistry;
+        this.stateless = stateless;
+    }
+
+    /**
+     * This method defines the SecurityWebFilterChain bean, which protects the application URLs.
+     * @param http ServerHttpSecurity object to configure security.
+     * @return a SecurityWebFilterChain object.
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                // Disable CSRF, HTTP Basic and form login: this is a stateless REST API authenticated with JWTs.
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                // Never store the security context between requests.
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers("/api/auth/**").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/api/users").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/api/products/export").authenticated()
+                        .pathMatchers(HttpMethod.GET, "/api/products", "/api/products/{id}").permitAll()
+                        .pathMatchers("/api/admin/**").hasRole("ADMIN")
+                        .pathMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .pathMatchers("/actuator/**").hasRole("ADMIN")
+                        .anyExchange().authenticated()
+                )
+                // Add our JWT filter at the authentication step of the chain. It is not a bean, so that WebFlux
+                // does not also run it outside of the chain.
+                .addFilterAt(new JwtAuthenticationWebFilter(userDetailsService, jwtUtil, tokenVersionRegistry, stateless),
+                        SecurityWebFiltersOrder.AUTHENTICATION)
+                .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                .build();
+    }
+
+    /**
+     * This method defines the CORS configuration, identical to the one of SecurityConfig.
+     * @return a CorsConfigurationSource object.
+     */
+    private CorsConfigurationSource corsConfigurationSource() {
+        var corsConfiguration = new org.springframework.web.cors.CorsConfiguration();
+        corsConfiguration.setAllowedOrigins(List.of("http://localhost:3000"));
+        corsConfiguration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE"));
+        corsConfiguration.setAllowedHeaders(List.of("*"));
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", corsConfiguration);
+        return source;
+    }
+
+    /**
+     * This method defines the PasswordEncoder bean of the reactive stack.
+     * Like in SecurityConfig, the work runs on the bounded PasswordHashingExecutor, with the same admission control.
+     * @return a PasswordEncoder object.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return passwordHashingExecutor.wrap(new TimedPasswordEncoder(passwordEncoderCalibrator.createEncoder(), meterRegistry));
+    }
+
+    /**
+     * This method defines the ReactiveAuthenticationManager used by the login endpoint.
+     * BCrypt is CPU-bound and blocking, so the password check runs on the bounded elastic scheduler,
+     * never on the event loop.
+     * @return a ReactiveAuthenticationManager object.
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager() {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder());
+        // Re-hash passwords stored with an older algorithm or cost when their owner logs in.
+        authenticationManager.setUserDetailsPasswordService(userDetailsService);
+        authenticationManager.setScheduler(Schedulers.boundedElastic());
+        return authenticationManager;
+    }
+
+    /**
+     * This method makes the reactive stack run on Netty, with a small fixed number of event loop threads.
+     * Without it, Spring Boot would pick Tomcat, which is also on the classpath for the blocking stack.
+     * @return a NettyReactiveWebServerFactory object.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
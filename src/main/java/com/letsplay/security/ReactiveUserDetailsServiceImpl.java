@@ -0,0 +1,93 @@
+package com.letsplay.security;
+
+import com.letsplay.model.User;
+import com.letsplay.repository.ReactiveUserRepository;
+import com.letsplay.service.InvalidationBus;
+import com.letsplay.service.InvalidationEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the reactive counterpart of UserDetailsServiceImpl, used by the "reactive" profile.
+ * It loads users through ReactiveUserRepository, so that no thread is blocked while waiting for MongoDB.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserDetailsServiceImpl implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    /**
+     * Spring will automatically inject an instance of ReactiveUserRepository here.
+     */
+    @Autowired
+    private ReactiveUserRepository reactiveUserRepository;
+
+    /**
+     * Spring will automatically inject an instance of ReactiveMongoTemplate here.
+     */
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of UserLookupCache here.
+     */
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    /**
+     * Spring will automatically inject an instance of InvalidationBus here.
+     */
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * This method is called by Spring Security to load a user by their username (in our case, email).
+     * @param email The username (email) of the user.
+     * @return a Mono emitting the user's UserPrincipal, or completing empty if the user is not found.
+     */
+    @Override
+    public Mono<UserDetails> findByUsername(String email) {
+        return reactiveUserRepository.findByEmail(email)
+                .map(user -> {
+                    // Spring Security expects roles to start with "ROLE_", so we prefix it.
+                    List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().toUpperCase()));
+                    return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), user.getRole(),
+                            user.getTokenVersion(), authorities);
+                });
+    }
+
+    /**
+     * This method stores a re-hashed password after a successful login, like UserDetailsServiceImpl.updatePassword.
+     * @param userDetails The authenticated user.
+     * @param newPassword The password, hashed with the current PasswordEncoder.
+     * @return a Mono emitting the UserDetails with the new password hash.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails userDetails, String newPassword) {
+        return reactiveMongoTemplate.updateFirst(new Query(Criteria.where("email").is(userDetails.getUsername())),
+                        new Update().set("password", newPassword), User.class)
+                .doOnNext(result -> {
+                    userLookupCache.evict(userDetails.getUsername());
+                    if (userDetails instanceof UserPrincipal principal) {
+                        invalidationBus.publish(InvalidationEvent.userChanged(principal.getUsername(), principal.getTokenVersion()));
+                    }
+                })
+                .thenReturn(userDetails instanceof UserPrincipal principal
+                        ? new UserPrincipal(principal.getId(), principal.getUsername(), newPassword, principal.getRole(),
+                                principal.getTokenVersion(), principal.getAuthorities())
+                        : org.springframework.security.core.userdetails.User.withUserDetails(userDetails).password(newPassword).build());
+    }
+}
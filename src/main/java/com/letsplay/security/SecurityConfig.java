@@ -1,7 +1,10 @@
 package com.letsplay.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -9,8 +12,8 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -21,17 +24,30 @@ import java.util.List;
  * This class is responsible for configuring the security of the application.
  * @Configuration indicates that this class contains Spring configuration.
  * @EnableWebSecurity enables Spring Security's web security support.
+ * It is only active in the blocking (servlet) stack; the "reactive" profile replaces it with a WebFlux equivalent.
  */
 @Configuration
 @EnableWebSecurity
+@Profile("!reactive")
 public class SecurityConfig {
 
     private final JwtRequestFilter jwtRequestFilter;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final PasswordEncoderCalibrator passwordEncoderCalibrator;
+    private final MeterRegistry meterRegistry;
 
-    public SecurityConfig(JwtRequestFilter jwtRequestFilter, UserDetailsService userDetailsService) {
+    public SecurityConfig(JwtRequestFilter jwtRequestFilter, UserDetailsServiceImpl userDetailsService,
+                          PasswordHashingExecutor passwordHashingExecutor,
+                          PasswordEncoderCalibrator passwordEncoderCalibrator,
+                          MeterRegistry meterRegistry) {
         this.jwtRequestFilter = jwtRequestFilter;
         this.userDetailsService = userDetailsService;
+        this.userDetailsPasswordService = userDetailsService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.passwordEncoderCalibrator = passwordEncoderCalibrator;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -49,12 +65,26 @@ public class SecurityConfig {
 
                 // Configure authorization rules for HTTP requests.
                 .authorizeHttpRequests(authz -> authz
+                        // Let async and error dispatches through: the original request was already authorized.
+                        // This is needed for streamed responses such as the product export.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         // Permit all requests to URLs starting with "/api/auth/**". This is for authentication endpoints like login.
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Only administrators may import users in bulk.
+                        .requestMatchers(HttpMethod.POST, "/api/users/import").hasRole("ADMIN")
                         // Permit POST requests to "/api/users" for user creation (sign-up).
                         .requestMatchers(HttpMethod.POST, "/api/users").permitAll()
-                        // Permit all GET requests to the "/api/products" endpoint. This is for the public product listing.
-                        .requestMatchers(HttpMethod.GET, "/api/products").permitAll()
+                        // The full catalog export is for authenticated clients only. This rule must come before the next one.
+                        .requestMatchers(HttpMethod.GET, "/api/products/export").authenticated()
+                        // Permit all GET requests to the "/api/products" endpoint and to single products.
+                        // This is for the public product listing.
+                        .requestMatchers(HttpMethod.GET, "/api/products", "/api/products/{id}").permitAll()
+                        // Only administrators may use the endpoints under "/api/admin".
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        // The health check is read by infrastructure without a JWT. The metrics reveal the traffic
+                        // and the timings of the application, so the other actuator endpoints require an admin.
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // Any other request must be authenticated.
                         .anyRequest().authenticated()
                 )
@@ -80,12 +110,14 @@ public class SecurityConfig {
 
     /**
      * This method defines a PasswordEncoder bean, which is used to hash passwords.
-     * We are using BCrypt, which is a strong hashing algorithm.
+     * We are using BCrypt, which is a strong hashing algorithm, with a cost chosen by PasswordEncoderCalibrator.
+     * BCrypt is deliberately CPU-heavy, so it runs on the bounded PasswordHashingExecutor, not on the request threads.
+     * Its hash and match times are recorded by TimedPasswordEncoder.
      * @return a PasswordEncoder object.
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return passwordHashingExecutor.wrap(new TimedPasswordEncoder(passwordEncoderCalibrator.createEncoder(), meterRegistry));
     }
 
     /**
@@ -110,6 +142,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Re-hash passwords stored with an older algorithm or cost when their owner logs in.
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 }
@@ -0,0 +1,62 @@
+package com.letsplay.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimedPasswordEncoder is a PasswordEncoder that records the time of every hash and match of another PasswordEncoder,
+ * as the password.encode and password.match timers (the latter tagged with the result).
+ * It wraps the BCrypt encoder directly, inside the PasswordHashingExecutor, so the timers measure the hashing itself,
+ * not the time spent waiting for a hashing thread.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer mismatchTimer;
+
+    /**
+     * Constructor for TimedPasswordEncoder.
+     * @param delegate The PasswordEncoder doing the actual hashing.
+     * @param meterRegistry The registry the timers are registered in.
+     */
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = Timer.builder("password.encode")
+                .description("Time to hash a password")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.matchTimer = matchTimer(meterRegistry, "match");
+        this.mismatchTimer = matchTimer(meterRegistry, "mismatch");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        (matches ? matchTimer : mismatchTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer matchTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("password.match")
+                .description("Time to check a password against its hash")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
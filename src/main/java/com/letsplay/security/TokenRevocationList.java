@@ -0,0 +1,270 @@
+package com.letsplay.security;
+
+import com.letsplay.model.RevokedToken;
+import com.letsplay.service.InvalidationBus;
+import com.letsplay.service.InvalidationEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TokenRevocationList holds the IDs (jti) of the revoked access tokens that have not expired yet.
+ * <p>
+ * It is checked on every authenticated request, so the check never touches the database: a Bloom filter answers
+ * "certainly not revoked" for almost every token in a few nanoseconds, and only its (rare) positive answers are
+ * confirmed against an exact set. Access tokens are short-lived, so both only hold the revocations of the last
+ * access token lifetime; expired entries are dropped, and the Bloom filter rebuilt, at most once per purge interval.
+ * <p>
+ * Revocations are also stored in the revoked_tokens collection, from which the list is rebuilt at startup,
+ * and sent to the other nodes through the InvalidationBus.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    /**
+     * The exact set of revoked token IDs, with the expiration time of each token in epoch milliseconds.
+     */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * The MongoTemplate the revocations are persisted with.
+     */
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * The bus the revocations are sent to the other nodes with.
+     */
+    private final InvalidationBus invalidationBus;
+
+    /**
+     * The number of revocations the Bloom filter is sized for.
+     */
+    private final int expectedRevocations;
+
+    /**
+     * The false positive rate of the Bloom filter at its expected number of revocations.
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * The minimum time between two purges of the expired revocations, in milliseconds.
+     */
+    private final long purgeIntervalMillis;
+
+    /**
+     * The current Bloom filter. It is replaced, not cleared, when the expired revocations are purged.
+     */
+    private volatile BloomFilter bloomFilter;
+
+    /**
+     * The time after which the next purge runs, in epoch milliseconds.
+     */
+    private volatile long nextPurge;
+
+    /**
+     * Constructor for TokenRevocationList.
+     * @param mongoTemplate The MongoTemplate the revocations are persisted with.
+     * @param invalidationBus The bus the revocations are sent to the other nodes with.
+     * @param expectedRevocations The number of live revocations the Bloom filter is sized for.
+     * @param falsePositiveRate The false positive rate of the Bloom filter at that size.
+     * @param purgeIntervalSeconds The minimum time between two purges of the expired revocations.
+     */
+    public TokenRevocationList(MongoTemplate mongoTemplate, InvalidationBus invalidationBus,
+                               @Value("${jwt.revocation.expected-revocations:100000}") int expectedRevocations,
+                               @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                               @Value("${jwt.revocation.purge-interval-seconds:60}") long purgeIntervalSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.invalidationBus = invalidationBus;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.purgeIntervalMillis = TimeUnit.SECONDS.toMillis(purgeIntervalSeconds);
+        this.bloomFilter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        this.nextPurge = System.currentTimeMillis() + purgeIntervalMillis;
+    }
+
+    /**
+     * Loads the revocations of the tokens that have not expired yet.
+     */
+    @PostConstruct
+    public void load() {
+        Query query = new Query(Criteria.where("expiresAt").gt(new Date()));
+        for (RevokedToken token : mongoTemplate.find(query, RevokedToken.class)) {
+            markRevoked(token.getId(), token.getExpiresAt().getTime());
+        }
+        logger.info("Loaded {} access token revocations", revoked.size());
+    }
+
+    /**
+     * Revokes an access token until it expires, on this node, in the database and on the other nodes.
+     * @param tokenId The ID (jti) of the access token.
+     * @param expiresAt The expiration date of the access token.
+     */
+    public void revoke(String tokenId, Date expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.after(new Date())) {
+            // An expired token is rejected anyway.
+            return;
+        }
+        markRevoked(tokenId, expiresAt.getTime());
+        mongoTemplate.save(new RevokedToken(tokenId, expiresAt));
+        invalidationBus.publish(InvalidationEvent.tokenRevoked(tokenId, expiresAt));
+    }
+
+    /**
+     * Revokes an access token on this node only, e.g. for a revocation already stored by another node.
+     * @param tokenId The ID (jti) of the access token.
+     * @param expiresAtMillis The expiration time of the access token, in epoch milliseconds.
+     */
+    public void markRevoked(String tokenId, long expiresAtMillis) {
+        purgeIfDue();
+        revoked.put(tokenId, expiresAtMillis);
+        BloomFilter filter;
+        do {
+            // If a purge replaced the filter meanwhile, add the token to the new one too.
+            filter = bloomFilter;
+            filter.put(tokenId);
+        } while (filter != bloomFilter);
+    }
+
+    /**
+     * Applies a revocation made on another node, received through the InvalidationBus.
+     * If events were missed, the revocations are reloaded from the database.
+     * @param event The invalidation event.
+     */
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.getType()) {
+            case TOKEN_REVOKED -> {
+                if (event.getKey() != null && event.getExpiresAt() != null) {
+                    markRevoked(event.getKey(), event.getExpiresAt().getTime());
+                }
+            }
+            case RESET -> load();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Checks whether an access token is revoked. This is called on every authenticated request.
+     * @param tokenId The ID (jti) of the access token, or null for tokens issued without one.
+     * @return true if the token is revoked, false otherwise.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Gets the number of live revocations.
+     * @return the number of revoked tokens held in memory.
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * This is a helper method that drops the expired revocations and rebuilds the Bloom filter without them,
+     * if the purge interval has elapsed. The new filter is filled before it replaces the current one,
+     * so concurrent checks never see a revocation disappear.
+     */
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextPurge) {
+            return;
+        }
+        synchronized (this) {
+            if (now < nextPurge) {
+                return;
+            }
+            nextPurge = now + purgeIntervalMillis;
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.size()), falsePositiveRate);
+            revoked.keySet().forEach(rebuilt::put);
+            bloomFilter = rebuilt;
+            // Revocations added to the old filter while the new one was filled are added to it as well.
+            revoked.keySet().forEach(rebuilt::put);
+        }
+    }
+
+    /**
+     * A fixed-size, thread-safe Bloom filter of strings.
+     * It uses the double hashing scheme of Kirsch and Mitzenmacher: the k bit positions of an element
+     * are derived from the two halves of a single 64-bit hash.
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        /**
+         * Constructor for BloomFilter. It uses the optimal number of bits and hash functions for the given size and rate.
+         * @param expectedInsertions The expected number of elements.
+         * @param falsePositiveRate The false positive rate at that number of elements.
+         */
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            int n = Math.max(1, expectedInsertions);
+            long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+            this.bitCount = bits.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        }
+
+        void put(String element) {
+            long hash = hash(element);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                long mask = 1L << bit;
+                bits.getAndAccumulate((int) (bit >>> 6), mask, (current, add) -> current | add);
+            }
+        }
+
+        boolean mightContain(String element) {
+            long hash = hash(element);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * A 64-bit FNV-1a hash of the characters, followed by the finalizer of MurmurHash3 to spread the bits.
+         */
+        private static long hash(String element) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < element.length(); i++) {
+                hash ^= element.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
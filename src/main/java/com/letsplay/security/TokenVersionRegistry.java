@@ -0,0 +1,75 @@
+package com.letsplay.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.letsplay.service.InvalidationEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenVersionRegistry keeps track, in memory, of the users whose security data changed
+ * while this node was running, together with their new token version.
+ * In stateless authentication mode, JwtRequestFilter uses it to decide whether a token can be
+ * trusted as-is, or whether the user has to be loaded from the database to check it.
+ * The changes made on other nodes are received through the InvalidationBus.
+ * <p>
+ * Only changes that revoke tokens (a version above 0) are kept, and only for the lifetime of an access token:
+ * after that, every token issued before the change has expired, so the entry is no longer needed.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    /**
+     * The latest known token version for each changed user, keyed by email.
+     */
+    private final Cache<String, Long> versions;
+
+    /**
+     * Constructor for TokenVersionRegistry.
+     * @param accessTokenTtlSeconds The lifetime of an access token, after which a change is forgotten.
+     */
+    public TokenVersionRegistry(@Value("${jwt.access-token-ttl-seconds:900}") long accessTokenTtlSeconds) {
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(accessTokenTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Records that the security data of a user changed.
+     * @param email The email of the user.
+     * @param tokenVersion The new token version of the user.
+     */
+    public void userChanged(String email, long tokenVersion) {
+        // Version 0 is the version of every new user, and an older version than the known one changes nothing.
+        Long known = versions.getIfPresent(email);
+        if (tokenVersion <= 0 || (known != null && known >= tokenVersion)) {
+            return;
+        }
+        versions.asMap().merge(email, tokenVersion, Math::max);
+    }
+
+    /**
+     * Checks whether a token version claim may be outdated.
+     * @param email The email of the user.
+     * @param tokenVersion The token version found in the JWT.
+     * @return true if the user changed since the token was issued, false otherwise.
+     */
+    public boolean isStale(String email, long tokenVersion) {
+        Long latest = versions.getIfPresent(email);
+        return latest != null && latest > tokenVersion;
+    }
+
+    /**
+     * Applies a user change made on another node, received through the InvalidationBus.
+     * @param event The invalidation event.
+     */
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getType() == InvalidationEvent.Type.USER_CHANGED && event.getTokenVersion() != null) {
+            userChanged(event.getKey(), event.getTokenVersion());
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.letsplay.security;
 
 import com.letsplay.model.User;
-import com.letsplay.repository.UserRepository;
+import com.letsplay.service.InvalidationBus;
+import com.letsplay.service.InvalidationEvent;
+import com.letsplay.timing.RequestTiming;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,20 +23,54 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is a custom implementation of Spring Security's UserDetailsService interface.
  * It is responsible for loading user-specific data during the authentication process.
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     /**
-     * Spring will automatically inject an instance of UserRepository here.
-     * This repository is used to fetch user data from the database.
+     * Spring will automatically inject an instance of UserLookupCache here.
+     * It fetches user data from the database, through a bounded cache.
      */
     @Autowired
-    private UserRepository userRepository;
+    private UserLookupCache userLookupCache;
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     * It is used to update only the password field when a password is re-hashed.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of InvalidationBus here.
+     * It tells the other nodes to evict a user whose password hash was replaced.
+     */
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * Spring will automatically inject the application's MeterRegistry here.
+     * It exposes the time of every user lookup (user.details.load), from the cache or from the database.
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer foundTimer;
+    private Timer notFoundTimer;
+
+    /**
+     * Registers the timers once the MeterRegistry has been injected.
+     */
+    @PostConstruct
+    public void init() {
+        this.foundTimer = loadTimer("found");
+        this.notFoundTimer = loadTimer("not_found");
+    }
 
     /**
      * This method is called by Spring Security to load a user by their username (in our case, email).
@@ -36,15 +80,60 @@ public class UserDetailsServiceImpl implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // Find the user by email in the database.
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        // Find the user by email, in the cache or in the database.
+        long start = System.nanoTime();
+        User user = userLookupCache.findByEmail(email).orElse(null);
+        long elapsed = System.nanoTime() - start;
+        RequestTiming.add(RequestTiming.Phase.USER, elapsed);
+        if (user == null) {
+            notFoundTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
+        foundTimer.record(elapsed, TimeUnit.NANOSECONDS);
 
         // Create a collection of GrantedAuthority objects based on the user's role.
         // Spring Security expects roles to start with "ROLE_", so we prefix it.
         Collection<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().toUpperCase()));
 
-        // Return a Spring Security User object with the user's email, password, and authorities.
-        return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), authorities);
+        // Always build a new UserPrincipal: Spring Security erases the password of the returned object
+        // after authentication, so it must never be shared through the cache.
+        // Return a UserPrincipal (a Spring Security User) with the user's email, password, and authorities.
+        // The ID, role and token version are kept too, so that they can be embedded in the JWT.
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), user.getRole(),
+                user.getTokenVersion(), authorities);
+    }
+
+    /**
+     * This method is called by Spring Security after a successful login, when the stored password hash uses an older
+     * algorithm or cost than the current PasswordEncoder (see PasswordEncoderCalibrator). It stores the new hash.
+     * The password itself did not change, so the token version is left as it is.
+     * @param userDetails The authenticated user.
+     * @param newPassword The password, hashed with the current PasswordEncoder.
+     * @return the UserDetails with the new password hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("email").is(userDetails.getUsername())),
+                new Update().set("password", newPassword), User.class);
+        userLookupCache.evict(userDetails.getUsername());
+        if (userDetails instanceof UserPrincipal principal) {
+            invalidationBus.publish(InvalidationEvent.userChanged(principal.getUsername(), principal.getTokenVersion()));
+            return new UserPrincipal(principal.getId(), principal.getUsername(), newPassword, principal.getRole(),
+                    principal.getTokenVersion(), principal.getAuthorities());
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).password(newPassword).build();
+    }
+
+    /**
+     * This is a helper method that registers the user.details.load timer of one lookup result.
+     * @param result The result tag: found or not_found.
+     * @return the Timer.
+     */
+    private Timer loadTimer(String result) {
+        return Timer.builder("user.details.load")
+                .description("Time to load a user for authentication, from the user cache or the database")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
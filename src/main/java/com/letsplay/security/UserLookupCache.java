@@ -0,0 +1,118 @@
+package com.letsplay.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.letsplay.model.User;
+import com.letsplay.repository.UserRepository;
+import com.letsplay.service.InvalidationEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * UserLookupCache is a size-bounded, time-expiring cache of users keyed by email.
+ * It sits in front of UserRepository.findByEmail for the authentication path, so that repeated
+ * logins and API calls from the same users do not hit the database for identical documents.
+ * Concurrent misses for the same email are collapsed into a single database call.
+ */
+@Component
+public class UserLookupCache {
+
+    /**
+     * The repository used to load users on a cache miss.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * The underlying cache, or null if caching is disabled.
+     */
+    private final LoadingCache<String, User> cache;
+
+    /**
+     * Constructor for UserLookupCache.
+     * @param userRepository The repository used to load users.
+     * @param enabled Whether the cache is enabled.
+     * @param maxSize The maximum number of users kept in the cache.
+     * @param ttlSeconds How long, in seconds, a user stays in the cache after being loaded.
+     */
+    public UserLookupCache(UserRepository userRepository,
+                           @Value("${user-cache.enabled:true}") boolean enabled,
+                           @Value("${user-cache.max-size:10000}") long maxSize,
+                           @Value("${user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        // A missing user makes the loader return null, which Caffeine does not cache.
+        this.cache = enabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                        .recordStats()
+                        .build(email -> userRepository.findByEmail(email).orElse(null))
+                : null;
+    }
+
+    /**
+     * Finds a user by email, using the cache when it is enabled.
+     * The returned User must be treated as read-only, since it may be shared with other requests.
+     * @param email The email of the user to find.
+     * @return an Optional containing the user if found, or an empty Optional otherwise.
+     */
+    public Optional<User> findByEmail(String email) {
+        if (cache == null) {
+            return userRepository.findByEmail(email);
+        }
+        return Optional.ofNullable(cache.get(email));
+    }
+
+    /**
+     * Removes a user from the cache. This must be called whenever a user is created, updated or deleted.
+     * @param email The email of the user to evict.
+     */
+    public void evict(String email) {
+        if (cache != null && email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    /**
+     * Removes all users from the cache.
+     */
+    public void evictAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Applies a user change made on another node, received through the InvalidationBus.
+     * @param event The invalidation event.
+     */
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.getType()) {
+            case USER_CHANGED -> evict(event.getKey());
+            case RESET -> evictAll();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of the cache.
+     * @return the cache statistics, or empty statistics if caching is disabled.
+     */
+    public CacheStats stats() {
+        return cache != null ? cache.stats() : CacheStats.empty();
+    }
+
+    /**
+     * Gets the number of users currently in the cache.
+     * @return the approximate number of cached users.
+     */
+    public long size() {
+        return cache != null ? cache.estimatedSize() : 0L;
+    }
+}
@@ -0,0 +1,70 @@
+package com.letsplay.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * UserPrincipal is the UserDetails implementation used by the application.
+ * On top of Spring Security's User it carries the user's ID, role and token version,
+ * so that they can be embedded in a JWT and read back without loading the user from the database.
+ */
+public class UserPrincipal extends User {
+
+    /**
+     * The ID of the user in the database.
+     */
+    private final String id;
+
+    /**
+     * The role of the user, e.g., "ADMIN" or "USER", without the "ROLE_" prefix.
+     */
+    private final String role;
+
+    /**
+     * The token version of the user at the time this principal was built.
+     */
+    private final long tokenVersion;
+
+    /**
+     * Constructor for UserPrincipal.
+     * @param id The ID of the user.
+     * @param email The email of the user, used as the username.
+     * @param password The hashed password of the user, or an empty string when built from a JWT.
+     * @param role The role of the user.
+     * @param tokenVersion The token version of the user.
+     * @param authorities The authorities granted to the user.
+     */
+    public UserPrincipal(String id, String email, String password, String role, long tokenVersion,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.id = id;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+    }
+
+    /**
+     * Gets the ID of the user.
+     * @return the user's ID.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the role of the user.
+     * @return the user's role.
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Gets the token version of the user.
+     * @return the user's token version.
+     */
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+}
@@ -0,0 +1,128 @@
+package com.letsplay.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * VerifiedTokenCache maps the SHA-256 digest of a JWT to its already verified claims.
+ * Clients send the same bearer token many times during its lifetime, so repeat requests can skip
+ * the HMAC verification and the JSON parsing of the claims. Each entry expires at the token's own
+ * expiration time, and the whole cache must be flushed whenever the signing secret changes.
+ * Only the digest of the token is kept, never the token itself.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * The underlying cache, or null if caching is disabled.
+     */
+    private final Cache<ByteBuffer, Claims> cache;
+
+    /**
+     * Constructor for VerifiedTokenCache.
+     * @param enabled Whether the cache is enabled.
+     * @param maxSize The maximum number of tokens kept in the cache.
+     */
+    public VerifiedTokenCache(@Value("${jwt.verified-cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.verified-cache.max-size:100000}") long maxSize) {
+        this.cache = enabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfter(new ExpireAtTokenExpiration())
+                        .recordStats()
+                        .build()
+                : null;
+    }
+
+    /**
+     * Returns the verified claims of a token, verifying it only if it is not already cached.
+     * @param token The JWT.
+     * @param verifier The function that verifies and parses the token, throwing if it is invalid.
+     * @return the verified claims.
+     */
+    public Claims get(String token, Function<String, Claims> verifier) {
+        if (cache == null) {
+            return verifier.apply(token);
+        }
+        // Exceptions thrown by the verifier are propagated, and nothing is cached for invalid tokens.
+        return cache.get(digest(token), key -> verifier.apply(token));
+    }
+
+    /**
+     * Removes all tokens from the cache. This must be called when the signing secret is rotated.
+     */
+    public void flush() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of the cache.
+     * Every hit is a signature verification and a claims parsing that were saved.
+     * @return the cache statistics, or empty statistics if caching is disabled.
+     */
+    public CacheStats stats() {
+        return cache != null ? cache.stats() : CacheStats.empty();
+    }
+
+    /**
+     * Gets the number of tokens currently in the cache.
+     * @return the approximate number of cached tokens.
+     */
+    public long size() {
+        return cache != null ? cache.estimatedSize() : 0L;
+    }
+
+    /**
+     * Computes the SHA-256 digest of a token, used as the cache key.
+     * @param token The JWT.
+     * @return the digest, wrapped so that it can be compared by content.
+     */
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Expires each entry at the expiration time of its token.
+     */
+    private static class ExpireAtTokenExpiration implements Expiry<ByteBuffer, Claims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return 0L;
+            }
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.letsplay.service;
+
+import com.letsplay.model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CatalogVersion is an in-memory version counter of the product catalog, incremented on every product write.
+ * It drives the ETags of the product reads: as long as the version did not change, a client's ETag is still valid
+ * and the request can be answered with 304 (Not Modified) without querying MongoDB or serializing a body.
+ * <p>
+ * The counter is bumped automatically for every save and delete that goes through ProductRepository or MongoTemplate
+ * entity methods (via the Spring Data mapping events). Writes that bypass those events (bulk operations, updates)
+ * must call productChanged() themselves. The writes of other nodes arrive through the InvalidationBus.
+ * Every ETag also contains a random epoch chosen at startup, so that a restart,
+ * or a request served by another node, never matches an ETag it did not issue.
+ */
+@Component
+public class CatalogVersion extends AbstractMongoEventListener<Product> {
+
+    /**
+     * A random value chosen at startup, which makes ETags unique to this process.
+     */
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+
+    /**
+     * The version of the catalog, incremented on every product write.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Spring will automatically inject an instance of InvalidationBus here.
+     * It tells the other nodes that the catalog changed.
+     */
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * Records that the catalog changed, on this node only.
+     * This is for changes the other nodes learn about by themselves (e.g., from a change stream, or from the bus).
+     */
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Records that a product was written by this node, and tells the other nodes.
+     * @param productId The ID of the product, or null if several products changed.
+     */
+    public void productChanged(String productId) {
+        bump();
+        invalidationBus.publish(InvalidationEvent.productChanged(productId));
+    }
+
+    /**
+     * Applies a product change made on another node, received through the InvalidationBus.
+     * @param event The invalidation event.
+     */
+    @EventListener
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getType() == InvalidationEvent.Type.PRODUCT_CHANGED || event.getType() == InvalidationEvent.Type.RESET) {
+            bump();
+        }
+    }
+
+    /**
+     * Gets the ETag of the catalog as a whole, used by the product listing.
+     * @return a strong ETag, including the quotes.
+     */
+    public String catalogEtag() {
+        return "\"" + epoch + "." + version.get() + "\"";
+    }
+
+    /**
+     * Gets the ETag of a single product. It combines the catalog version, the product's ID and its own version
+     * (@Version), so that it can be checked either without any query (nothing changed in the catalog at all),
+     * or against the product document only.
+     * @param product The product.
+     * @return a strong ETag, including the quotes.
+     */
+    public String productEtag(Product product) {
+        return "\"" + epoch + "." + version.get() + "." + product.getId() + "." + product.getVersion() + "\"";
+    }
+
+    /**
+     * Checks whether an If-None-Match header holds the catalog ETag issued since the last catalog change.
+     * In that case the listing did not change, and no query is needed.
+     * @param ifNoneMatch The value of the If-None-Match header, or null.
+     * @return the matching ETag, or null if there is none.
+     */
+    public String findUnchangedEtag(String ifNoneMatch) {
+        String current = epoch + "." + version.get();
+        for (String tag : parseEtags(ifNoneMatch)) {
+            if (tag.equals(current)) {
+                return "\"" + tag + "\"";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether an If-None-Match header holds an ETag of a product issued since the last catalog change.
+     * In that case the product did not change, so its version is still the one in the ETag, and no query is needed.
+     * @param ifNoneMatch The value of the If-None-Match header, or null.
+     * @param productId The ID of the requested product.
+     * @return the matching ETag, or null if there is none.
+     */
+    public String findUnchangedProductEtag(String ifNoneMatch, String productId) {
+        String prefix = epoch + "." + version.get() + "." + productId + ".";
+        for (String tag : parseEtags(ifNoneMatch)) {
+            if (tag.startsWith(prefix) && isVersion(tag.substring(prefix.length()))) {
+                return "\"" + tag + "\"";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether an If-None-Match header holds an ETag issued for the current version of a product,
+     * even if other products changed since.
+     * @param ifNoneMatch The value of the If-None-Match header, or null.
+     * @param product The product, as currently stored.
+     * @return true if the client already has this version of the product, false otherwise.
+     */
+    public boolean matchesProduct(String ifNoneMatch, Product product) {
+        String suffix = "." + product.getId() + "." + product.getVersion();
+        for (String tag : parseEtags(ifNoneMatch)) {
+            if (tag.startsWith(epoch + ".") && tag.endsWith(suffix)
+                    && isVersion(tag.substring(epoch.length() + 1, tag.length() - suffix.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bumps the version after a product has been saved through Spring Data.
+     * @param event The event published by Spring Data MongoDB.
+     */
+    @Override
+    public void onAfterSave(AfterSaveEvent<Product> event) {
+        productChanged(event.getSource().getId());
+    }
+
+    /**
+     * Bumps the version after a product has been deleted through Spring Data.
+     * @param event The event published by Spring Data MongoDB.
+     */
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Product> event) {
+        productChanged(null);
+    }
+
+    /**
+     * This is a helper method that checks whether a part of an ETag is a version number (or "null", for a product
+     * stored before versioning).
+     */
+    private static boolean isVersion(String value) {
+        return value.equals("null") || (!value.isEmpty() && value.chars().allMatch(Character::isDigit));
+    }
+
+    /**
+     * This is a helper method to extract the opaque values of the ETags of an If-None-Match header.
+     * Weak ETags are ignored, since we only issue strong ones.
+     * @param ifNoneMatch The value of the If-None-Match header, or null.
+     * @return the values of the ETags, without quotes.
+     */
+    private static String[] parseEtags(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .filter(tag -> tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\""))
+                .map(tag -> tag.substring(1, tag.length() - 1))
+                .toArray(String[]::new);
+    }
+}
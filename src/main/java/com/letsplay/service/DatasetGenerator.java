@@ -0,0 +1,376 @@
+package com.letsplay.service;
+
+import com.letsplay.model.Product;
+import com.letsplay.model.User;
+import com.letsplay.security.IsolatedPasswordEncoder;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a Spring service that fills the database with synthetic users and products, at production volumes
+ * (millions of documents), for performance work. It is run by the "seed" profile, and used by the load test.
+ * <p>
+ * Users are generated in chunks of batch-size users, on parallelism threads. Each chunk is inserted with one
+ * unordered bulk insert, followed by the products of its users, in bulk inserts of batch-size products.
+ * The number of products per user, the description length and the price follow configurable distributions
+ * (see Distribution). Every chunk has its own random generator, seeded from seed.random-seed and the chunk number,
+ * so the same settings always generate the same data.
+ * <p>
+ * BCrypt would limit seeding to a few hundred users per second, so only password-pool-size passwords are hashed,
+ * once, and shared by the users: user i has the email user-i@email-domain and the password seed-password-(i % pool size).
+ * No user gets the ADMIN role by default. With a positive admin-ratio, the admins share a random password instead,
+ * which is logged once, so that a seeded database does not have admins with a predictable password.
+ * Emails that already exist are skipped, with their products, so a seeding can be resumed or extended.
+ * <p>
+ * The documents are written directly, not through the services, so the caches of running servers are not
+ * invalidated: seed the database before the servers are started.
+ */
+@Service
+public class DatasetGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    /**
+     * The MongoDB error code of a duplicate key.
+     */
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final String[] ADJECTIVES = {"Red", "Compact", "Vintage", "Wireless", "Handmade", "Foldable",
+            "Organic", "Smart", "Classic", "Portable", "Heavy-duty", "Minimal"};
+    private static final String[] NOUNS = {"Chair", "Lamp", "Headphones", "Backpack", "Kettle", "Bicycle",
+            "Board game", "Camera", "Desk", "Guitar", "Jacket", "Watch"};
+    private static final String[] WORDS = ("lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod "
+            + "tempor incididunt ut labore et dolore magna aliqua used new condition shipping included great "
+            + "quality original box works perfectly small scratch barely collection only").split(" ");
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of PasswordEncoder here.
+     */
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    /**
+     * The number of users to generate.
+     */
+    @Value("${seed.users:100000}")
+    private long users;
+
+    /**
+     * The distribution of the number of products of a user.
+     */
+    @Value("${seed.products-per-user:zipf(1.1,200)}")
+    private String productsPerUser;
+
+    /**
+     * The distribution of the length of a product description, in characters.
+     */
+    @Value("${seed.description-length:normal(200,80)}")
+    private String descriptionLength;
+
+    /**
+     * The distribution of the price of a product.
+     */
+    @Value("${seed.price:lognormal(3.5,1.0)}")
+    private String price;
+
+    /**
+     * The share of the users that get the ADMIN role, 0 by default.
+     */
+    @Value("${seed.admin-ratio:0}")
+    private double adminRatio;
+
+    /**
+     * The domain of the generated emails.
+     */
+    @Value("${seed.email-domain:seed.letsplay.test}")
+    private String emailDomain;
+
+    /**
+     * The number of distinct passwords, hashed once and shared by the users.
+     */
+    @Value("${seed.password-pool-size:16}")
+    private int passwordPoolSize;
+
+    /**
+     * The number of users per chunk, and of products per bulk insert.
+     */
+    @Value("${seed.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * The number of writing threads, or 0 to use one per available core.
+     */
+    @Value("${seed.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * The seed of the random generators.
+     */
+    @Value("${seed.random-seed:42}")
+    private long randomSeed;
+
+    /**
+     * Gets the email of a generated user.
+     * @param index The number of the user, from 0.
+     * @return the email of the user.
+     */
+    public String email(long index) {
+        return "user-" + index + "@" + emailDomain;
+    }
+
+    /**
+     * Gets the clear text password of a generated user with the USER role.
+     * @param index The number of the user, from 0.
+     * @return the password of the user.
+     */
+    public String password(long index) {
+        return "seed-password-" + (index % passwordPoolSize);
+    }
+
+    /**
+     * Gets the number of users generated by generate().
+     * @return the number of users.
+     */
+    public long getUsers() {
+        return users;
+    }
+
+    /**
+     * This method generates and inserts the users and their products.
+     * @return the counts of inserted users, skipped (already existing) users and inserted products.
+     * @throws InterruptedException if interrupted while waiting for the writing threads.
+     * @throws IllegalArgumentException if a distribution setting is invalid.
+     */
+    public Counts generate() throws InterruptedException {
+        Distribution products = Distribution.parse(productsPerUser);
+        Distribution descriptions = Distribution.parse(descriptionLength);
+        Distribution prices = Distribution.parse(price);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        logger.info("Seeding {} users on {} threads: products per user {}, description length {}, price {}",
+                users, threads, products, descriptions, prices);
+
+        long start = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dataset-generator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Counts counts = new Counts();
+        try {
+            String[] passwordHashes = hashPasswords(pool);
+            String adminPasswordHash = adminRatio > 0 ? hashAdminPassword() : null;
+            long chunks = (users + batchSize - 1) / batchSize;
+            List<Future<?>> pending = new ArrayList<>();
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                long from = chunk * batchSize;
+                long to = Math.min(users, from + batchSize);
+                SplittableRandom random = new SplittableRandom(randomSeed + chunk);
+                pending.add(pool.submit(() -> generateChunk(from, to, random, passwordHashes,
+                        adminPasswordHash, products, descriptions, prices, counts)));
+                // Keep a bounded number of chunks queued, and report the progress.
+                if (pending.size() >= threads * 4) {
+                    await(pending.remove(0));
+                    if (chunk % 100 == 0) {
+                        logger.info("Seeded {} of {} users, {} products", counts.getUsers(), users, counts.getProducts());
+                    }
+                }
+            }
+            for (Future<?> future : pending) {
+                await(future);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Seeded {} users ({} already existed) and {} products in {} ms ({} documents/s)",
+                counts.getUsers(), counts.getSkippedUsers(), counts.getProducts(), elapsedMillis,
+                (counts.getUsers() + counts.getProducts()) * 1000 / elapsedMillis);
+        return counts;
+    }
+
+    /**
+     * This is a helper method that hashes the password pool, in parallel, with the encoder of the application,
+     * so that the generated users can log in.
+     */
+    private String[] hashPasswords(ExecutorService pool) throws InterruptedException {
+        // Like the user import, seeding bypasses the PasswordHashingExecutor of the logins.
+        PasswordEncoder encoder = passwordEncoder instanceof IsolatedPasswordEncoder isolated
+                ? isolated.getDelegate() : passwordEncoder;
+        List<Future<String>> hashes = new ArrayList<>();
+        for (int i = 0; i < passwordPoolSize; i++) {
+            String password = password(i);
+            hashes.add(pool.submit(() -> encoder.encode(password)));
+        }
+        String[] result = new String[passwordPoolSize];
+        for (int i = 0; i < passwordPoolSize; i++) {
+            result[i] = await(hashes.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * This is a helper method that generates the random password of the admins, logs it once, and hashes it.
+     */
+    private String hashAdminPassword() {
+        byte[] bytes = new byte[18];
+        new SecureRandom().nextBytes(bytes);
+        String password = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        logger.warn("The generated admins share the password {}; it is not shown again", password);
+        PasswordEncoder encoder = passwordEncoder instanceof IsolatedPasswordEncoder isolated
+                ? isolated.getDelegate() : passwordEncoder;
+        return encoder.encode(password);
+    }
+
+    /**
+     * This is a helper method that generates and inserts the users from..to (excluded), then their products.
+     */
+    private void generateChunk(long from, long to, SplittableRandom random, String[] passwordHashes,
+                               String adminPasswordHash, Distribution products, Distribution descriptions, Distribution prices, Counts counts) {
+        List<User> batch = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            User user = new User();
+            user.setId(new ObjectId().toHexString());
+            user.setName("Seed user " + i);
+            user.setEmail(email(i));
+            boolean admin = random.nextDouble() < adminRatio;
+            user.setPassword(admin ? adminPasswordHash : passwordHashes[(int) (i % passwordPoolSize)]);
+            user.setRole(admin ? "ADMIN" : "USER");
+            user.setTokenVersion(0);
+            batch.add(user);
+        }
+
+        Set<Integer> skipped = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(batch).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                skipped.add(error.getIndex());
+            }
+        }
+        counts.users.addAndGet(batch.size() - skipped.size());
+        counts.skippedUsers.addAndGet(skipped.size());
+
+        List<Product> productBatch = new ArrayList<>(batchSize);
+        for (int u = 0; u < batch.size(); u++) {
+            if (skipped.contains(u)) {
+                continue;
+            }
+            int count = products.sampleInt(random, 0, Integer.MAX_VALUE);
+            for (int p = 0; p < count; p++) {
+                productBatch.add(product(batch.get(u).getId(), random, descriptions, prices));
+                if (productBatch.size() == batchSize) {
+                    insertProducts(productBatch, counts);
+                }
+            }
+        }
+        if (!productBatch.isEmpty()) {
+            insertProducts(productBatch, counts);
+        }
+    }
+
+    private void insertProducts(List<Product> productBatch, Counts counts) {
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class).insert(productBatch).execute();
+        counts.products.addAndGet(productBatch.size());
+        productBatch.clear();
+    }
+
+    private static Product product(String userId, SplittableRandom random, Distribution descriptions, Distribution prices) {
+        Product product = new Product();
+        product.setId(new ObjectId().toHexString());
+        product.setName(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]);
+        product.setDescription(description(random, descriptions.sampleInt(random, 0, 10_000)));
+        product.setPrice(Math.max(0.01, Math.round(prices.sample(random) * 100) / 100.0));
+        product.setUserId(userId);
+        // Bulk inserts do not initialize the @Version field, which later saves rely on.
+        product.setVersion(0L);
+        return product;
+    }
+
+    private static String description(SplittableRandom random, int length) {
+        StringBuilder description = new StringBuilder(length + 16);
+        while (description.length() < length) {
+            if (description.length() > 0) {
+                description.append(' ');
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        description.setLength(length);
+        return description.toString();
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding failed", e.getCause());
+        }
+    }
+
+    /**
+     * The counts of a generation. They are updated by the writing threads.
+     */
+    public static final class Counts {
+
+        private final AtomicLong users = new AtomicLong();
+        private final AtomicLong skippedUsers = new AtomicLong();
+        private final AtomicLong products = new AtomicLong();
+
+        /**
+         * Gets the number of inserted users.
+         * @return the number of inserted users.
+         */
+        public long getUsers() {
+            return users.get();
+        }
+
+        /**
+         * Gets the number of users skipped because their email already existed.
+         * @return the number of skipped users.
+         */
+        public long getSkippedUsers() {
+            return skippedUsers.get();
+        }
+
+        /**
+         * Gets the number of inserted products.
+         * @return the number of inserted products.
+         */
+        public long getProducts() {
+            return products.get();
+        }
+    }
+}
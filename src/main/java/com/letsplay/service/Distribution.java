@@ -0,0 +1,137 @@
+package com.letsplay.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A probability distribution of numbers, used by the DatasetGenerator to draw realistic values.
+ * Distributions are written as a name and parameters, e.g. in a property:
+ * <ul>
+ *     <li>constant(value)</li>
+ *     <li>uniform(min,max)</li>
+ *     <li>normal(mean,standardDeviation)</li>
+ *     <li>lognormal(mu,sigma): the logarithm of the value is normal(mu,sigma), a long right tail such as prices.</li>
+ *     <li>exponential(mean)</li>
+ *     <li>zipf(exponent,max): integers from 1 to max, where k has a probability proportional to 1/k^exponent,
+ *     so that most values are small and a few are very large (e.g. a few sellers own most of the products).</li>
+ * </ul>
+ * Instances are immutable and can be shared between threads; each thread passes its own random generator.
+ */
+public final class Distribution {
+
+    private final String definition;
+    private final String name;
+    private final double[] parameters;
+
+    /**
+     * The cumulative probabilities of 1..max, only for zipf.
+     */
+    private final double[] cumulative;
+
+    private Distribution(String definition, String name, double[] parameters) {
+        this.definition = definition;
+        this.name = name;
+        this.parameters = parameters;
+        this.cumulative = name.equals("zipf") ? zipfCumulative(parameters[0], (int) parameters[1]) : null;
+    }
+
+    /**
+     * Parses a distribution.
+     * @param definition The distribution, e.g. "lognormal(3.0,1.0)".
+     * @return the Distribution.
+     * @throws IllegalArgumentException if the definition is not a known distribution with valid parameters.
+     */
+    public static Distribution parse(String definition) {
+        String trimmed = definition.replace(" ", "");
+        int open = trimmed.indexOf('(');
+        if (open <= 0 || !trimmed.endsWith(")")) {
+            throw new IllegalArgumentException("Invalid distribution: " + definition);
+        }
+        String name = trimmed.substring(0, open).toLowerCase();
+        double[] parameters;
+        try {
+            parameters = Arrays.stream(trimmed.substring(open + 1, trimmed.length() - 1).split(","))
+                    .mapToDouble(Double::parseDouble)
+                    .toArray();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid distribution parameters: " + definition, e);
+        }
+        int expected = switch (name) {
+            case "constant", "exponential" -> 1;
+            case "uniform", "normal", "lognormal", "zipf" -> 2;
+            default -> throw new IllegalArgumentException("Unknown distribution: " + definition);
+        };
+        if (parameters.length != expected) {
+            throw new IllegalArgumentException(name + " takes " + expected + " parameters: " + definition);
+        }
+        if (name.equals("zipf") && (parameters[0] <= 0 || parameters[1] < 1 || parameters[1] > 10_000_000)) {
+            throw new IllegalArgumentException("zipf needs a positive exponent and a max between 1 and 10000000: " + definition);
+        }
+        return new Distribution(definition, name, parameters);
+    }
+
+    /**
+     * Draws a value.
+     * @param random The random generator of the calling thread.
+     * @return the value.
+     */
+    public double sample(SplittableRandom random) {
+        return switch (name) {
+            case "constant" -> parameters[0];
+            case "uniform" -> parameters[0] + random.nextDouble() * (parameters[1] - parameters[0]);
+            case "normal" -> parameters[0] + gaussian(random) * parameters[1];
+            case "lognormal" -> Math.exp(parameters[0] + gaussian(random) * parameters[1]);
+            case "exponential" -> -parameters[0] * Math.log(1.0 - random.nextDouble());
+            case "zipf" -> zipf(random);
+            default -> throw new IllegalStateException(name);
+        };
+    }
+
+    /**
+     * Draws a value, rounded to the nearest integer and clamped to a range.
+     * @param random The random generator of the calling thread.
+     * @param min The smallest value returned.
+     * @param max The largest value returned.
+     * @return the value.
+     */
+    public int sampleInt(SplittableRandom random, int min, int max) {
+        return (int) Math.max(min, Math.min(max, Math.round(sample(random))));
+    }
+
+    @Override
+    public String toString() {
+        return definition;
+    }
+
+    /**
+     * This is a helper method that draws a standard normal value, with the Box-Muller transform.
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * v);
+    }
+
+    /**
+     * This is a helper method that draws a zipf value, by binary search in the precomputed cumulative probabilities.
+     */
+    private int zipf(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        // A miss returns -(insertion point) - 1; the insertion point is the first value whose cumulative probability is larger.
+        int value = index >= 0 ? index : -index - 1;
+        return Math.min(value, cumulative.length - 1) + 1;
+    }
+
+    private static double[] zipfCumulative(double exponent, int max) {
+        double[] cumulative = new double[max];
+        double sum = 0;
+        for (int k = 1; k <= max; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < max; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,297 @@
+package com.letsplay.service;
+
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InvalidationBus carries InvalidationEvents between the nodes of the application, through MongoDB only.
+ * <p>
+ * Events are appended to a capped collection, which every node reads with a tailable, awaiting cursor: MongoDB
+ * returns a new event to all the open cursors as soon as it is inserted, so the other nodes see it within a few
+ * milliseconds. A capped collection keeps insertion order and overwrites its oldest documents, so it needs no
+ * cleanup. It works on a standalone mongod; no replica set or message broker is needed.
+ * <p>
+ * publish() never blocks the caller: events are queued and inserted in batches by a background thread.
+ * The events of other nodes are republished locally as Spring application events; a node ignores its own events,
+ * since the code that publishes an event has already updated the local caches.
+ * If this node falls so far behind that the events it has not read yet were overwritten, it publishes a RESET event.
+ */
+@Component
+public class InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+
+    /**
+     * The name of the capped collection of events.
+     */
+    static final String COLLECTION = "invalidation_events";
+
+    /**
+     * The cursor reads the events inserted up to this long before the last one read (or before startup),
+     * so that the events of nodes whose clocks are slightly behind are not filtered out. Some events are then
+     * applied twice, which is harmless since applying an event is idempotent.
+     */
+    private static final long CLOCK_SKEW_MILLIS = 5000;
+
+    /**
+     * A random ID of this process, stored in every event it publishes.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of ApplicationEventPublisher here.
+     * It delivers the events of the other nodes to the local caches.
+     */
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Whether the bus is enabled.
+     */
+    @Value("${invalidation-bus.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * The maximum size of the capped collection, in bytes. It only applies when the collection is created.
+     */
+    @Value("${invalidation-bus.collection-size-bytes:16777216}")
+    private long collectionSizeBytes;
+
+    /**
+     * The maximum number of events of the capped collection. It only applies when the collection is created.
+     */
+    @Value("${invalidation-bus.max-events:100000}")
+    private long maxEvents;
+
+    /**
+     * The maximum number of events waiting to be inserted. Events published while the queue is full are dropped.
+     */
+    @Value("${invalidation-bus.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<Document> outbox;
+    private volatile boolean running;
+    private Thread publisher;
+    private Thread subscriber;
+
+    /**
+     * The insertion time of the last event read, used to reopen the cursor. Only touched by the subscriber thread.
+     */
+    private Date lastSeenAt;
+
+    /**
+     * Starts the bus once the application is ready: creates the capped collection if needed,
+     * and starts the publisher and subscriber threads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            try {
+                mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty()
+                        .capped()
+                        .size(collectionSizeBytes)
+                        .maxDocuments(maxEvents));
+            } catch (RuntimeException e) {
+                // Another node created it at the same time.
+                logger.debug("Could not create the {} collection", COLLECTION, e);
+            }
+        }
+        outbox = new ArrayBlockingQueue<>(queueCapacity);
+        // The marker guarantees that the cursor has a document to start from, even when the collection is empty:
+        // a tailable cursor over an empty result is closed at once by the server.
+        Document marker = new Document("type", "NODE_STARTED").append("origin", nodeId).append("at", new Date());
+        mongoTemplate.getCollection(COLLECTION).insertOne(marker);
+        lastSeenAt = marker.getDate("at");
+
+        running = true;
+        publisher = new Thread(this::publishLoop, "invalidation-bus-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+        subscriber = new Thread(this::subscribeLoop, "invalidation-bus-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    /**
+     * Stops the bus, after sending the events still in the queue.
+     * @throws InterruptedException if interrupted while waiting for the threads.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (publisher != null) {
+            publisher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if (subscriber != null) {
+            subscriber.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Sends an event to the other nodes. The caller is responsible for applying it to the local caches.
+     * This method does not block: the event is queued and inserted by a background thread.
+     * @param event The event to send.
+     */
+    public void publish(InvalidationEvent event) {
+        if (!running) {
+            return;
+        }
+        Document document = new Document("type", event.getType().name())
+                .append("key", event.getKey())
+                .append("tokenVersion", event.getTokenVersion())
+                .append("expiresAt", event.getExpiresAt())
+                .append("origin", nodeId);
+        if (!outbox.offer(document)) {
+            logger.warn("Invalidation bus queue is full, dropping {}", event);
+        }
+    }
+
+    /**
+     * The body of the publisher thread: insert the queued events, in batches, until stopped and drained.
+     */
+    private void publishLoop() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        List<Document> batch = new ArrayList<>();
+        while (running || !outbox.isEmpty()) {
+            try {
+                Document first = outbox.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outbox.drainTo(batch, 999);
+                // The insertion time, not the time the event was queued: the subscribers reopen their cursors
+                // from it, so an event that waited in the queue must not look older than the events inserted before it.
+                Date now = new Date();
+                for (Document document : batch) {
+                    document.put("at", now);
+                }
+                collection.insertMany(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Could not publish {} invalidation events", batch.size(), e);
+                pause();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * The body of the subscriber thread: tail the capped collection and republish the events of the other nodes.
+     * The cursor is reopened from the last event read whenever it dies or fails.
+     */
+    private void subscribeLoop() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        boolean reopening = false;
+        while (running) {
+            try {
+                if (reopening) {
+                    detectLostEvents(collection);
+                }
+                Date from = new Date(lastSeenAt.getTime() - CLOCK_SKEW_MILLIS);
+                try (MongoCursor<Document> cursor = collection.find(Filters.gte("at", from))
+                        .cursorType(CursorType.TailableAwait)
+                        .maxAwaitTime(500, TimeUnit.MILLISECONDS)
+                        .noCursorTimeout(true)
+                        .cursor()) {
+                    while (running) {
+                        Document document = cursor.tryNext();
+                        if (document == null) {
+                            if (cursor.getServerCursor() == null) {
+                                // The server closed the cursor.
+                                break;
+                            }
+                            continue;
+                        }
+                        lastSeenAt = document.getDate("at");
+                        if (!nodeId.equals(document.getString("origin"))) {
+                            dispatch(document);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Invalidation bus cursor failed, reopening", e);
+                pause();
+            }
+            reopening = true;
+        }
+    }
+
+    /**
+     * This is a helper method that checks, before the cursor is reopened, whether events were overwritten
+     * before this node could read them. In that case a RESET event is published locally.
+     * @param collection The capped collection.
+     */
+    private void detectLostEvents(MongoCollection<Document> collection) {
+        Document oldest = collection.find().sort(new Document("$natural", 1)).limit(1).first();
+        if (oldest != null && oldest.getDate("at").after(lastSeenAt)) {
+            logger.warn("Invalidation events may have been missed since {}, resetting the local caches", lastSeenAt);
+            applicationEventPublisher.publishEvent(new InvalidationEvent(InvalidationEvent.Type.RESET, null, null, null));
+        }
+    }
+
+    /**
+     * This is a helper method that republishes an event of another node as a Spring application event.
+     * Unknown types (e.g., the NODE_STARTED markers) are ignored.
+     * @param document The event, as stored in the capped collection.
+     */
+    private void dispatch(Document document) {
+        InvalidationEvent.Type type;
+        try {
+            type = InvalidationEvent.Type.valueOf(document.getString("type"));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return;
+        }
+        Number tokenVersion = document.get("tokenVersion", Number.class);
+        InvalidationEvent event = new InvalidationEvent(type, document.getString("key"),
+                tokenVersion != null ? tokenVersion.longValue() : null, document.getDate("expiresAt"));
+        try {
+            applicationEventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            logger.warn("Could not apply invalidation event {}", event, e);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
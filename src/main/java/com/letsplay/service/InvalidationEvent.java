@@ -0,0 +1,120 @@
+package com.letsplay.service;
+
+import java.util.Date;
+
+/**
+ * InvalidationEvent describes a write that makes node-local state stale: a changed user, a revoked access token,
+ * or a changed product. Events are sent to the other nodes by InvalidationBus, which republishes the events it
+ * receives as Spring application events, so that each local cache applies them in an @EventListener method.
+ * <p>
+ * Applying an event must be idempotent, since an event can be delivered twice after a reconnection.
+ */
+public final class InvalidationEvent {
+
+    /**
+     * The kinds of invalidation.
+     */
+    public enum Type {
+        /**
+         * The security data of a user changed. The key is the email; the token version may be set.
+         */
+        USER_CHANGED,
+        /**
+         * An access token was revoked. The key is its jti; the expiration date is set.
+         */
+        TOKEN_REVOKED,
+        /**
+         * A product, or the catalog as a whole, changed. The key is the product ID, or null.
+         */
+        PRODUCT_CHANGED,
+        /**
+         * Events may have been missed (this node fell behind the bus): every local cache must be dropped or reloaded.
+         */
+        RESET
+    }
+
+    private final Type type;
+    private final String key;
+    private final Long tokenVersion;
+    private final Date expiresAt;
+
+    /**
+     * Constructor for InvalidationEvent.
+     * @param type The kind of invalidation.
+     * @param key The key of the invalidated entry, or null.
+     * @param tokenVersion The new token version of a user, or null.
+     * @param expiresAt The expiration date of a revoked token, or null.
+     */
+    public InvalidationEvent(Type type, String key, Long tokenVersion, Date expiresAt) {
+        this.type = type;
+        this.key = key;
+        this.tokenVersion = tokenVersion;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Creates the event of a user whose security data changed.
+     * @param email The email of the user.
+     * @param tokenVersion The current token version of the user.
+     * @return the event.
+     */
+    public static InvalidationEvent userChanged(String email, long tokenVersion) {
+        return new InvalidationEvent(Type.USER_CHANGED, email, tokenVersion, null);
+    }
+
+    /**
+     * Creates the event of a revoked access token.
+     * @param tokenId The ID (jti) of the token.
+     * @param expiresAt The expiration date of the token.
+     * @return the event.
+     */
+    public static InvalidationEvent tokenRevoked(String tokenId, Date expiresAt) {
+        return new InvalidationEvent(Type.TOKEN_REVOKED, tokenId, null, expiresAt);
+    }
+
+    /**
+     * Creates the event of a changed product.
+     * @param productId The ID of the product, or null if several products changed.
+     * @return the event.
+     */
+    public static InvalidationEvent productChanged(String productId) {
+        return new InvalidationEvent(Type.PRODUCT_CHANGED, productId, null, null);
+    }
+
+    /**
+     * Gets the kind of invalidation.
+     * @return the type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the key of the invalidated entry.
+     * @return the key, or null.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the new token version of a user.
+     * @return the token version, or null.
+     */
+    public Long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * Gets the expiration date of a revoked token.
+     * @return the expiration date, or null.
+     */
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + key + ")";
+    }
+}
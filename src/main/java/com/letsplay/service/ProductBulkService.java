@@ -0,0 +1,210 @@
+package com.letsplay.service;
+
+import com.letsplay.dto.BulkItemResult;
+import com.letsplay.dto.BulkProductOperation;
+import com.letsplay.dto.BulkResponse;
+import com.letsplay.model.Product;
+import com.letsplay.security.UserPrincipal;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * This class is a Spring service that applies batches of product upserts and deletes.
+ * The batch is split into bounded chunks, and each chunk is sent to MongoDB as one unordered bulkWrite,
+ * so a failing item never stops the others. Ownership is checked for the whole batch with a single query.
+ */
+@Service
+public class ProductBulkService {
+
+    private static final String UPSERT = "upsert";
+    private static final String DELETE = "delete";
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of CatalogVersion here.
+     * Bulk writes do not publish the Spring Data save events, so the version is bumped here.
+     */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /**
+     * The number of operations sent to MongoDB in one bulkWrite.
+     */
+    @Value("${products.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * The largest number of operations accepted in one request.
+     */
+    @Value("${products.bulk.max-operations:50000}")
+    private int maxOperations;
+
+    /**
+     * This method applies a batch of product operations on behalf of a user.
+     * Users may only update and delete their own products; administrators may update and delete any product.
+     * New products are owned by the user who creates them.
+     * @param operations The operations, in order.
+     * @param principal The authenticated user.
+     * @return a BulkResponse with the outcome of every operation.
+     * @throws ResponseStatusException with status 400 if the batch is empty or too large.
+     */
+    public BulkResponse bulkWrite(List<BulkProductOperation> operations, UserPrincipal principal) {
+        if (operations == null || operations.isEmpty() || operations.size() > maxOperations) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A bulk request must contain between 1 and " + maxOperations + " operations");
+        }
+        int count = operations.size();
+        BulkItemResult[] results = new BulkItemResult[count];
+        String[] ids = new String[count];
+        boolean admin = principal.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+
+        // Validate every operation, and give new products their ID up front so that they can be reported.
+        List<ObjectId> clientIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BulkProductOperation operation = operations.get(i);
+            String action = operation.getAction() == null ? "" : operation.getAction().toLowerCase();
+            String id = operation.getId();
+            if (!action.equals(UPSERT) && !action.equals(DELETE)) {
+                results[i] = new BulkItemResult(i, id, "INVALID", "Unknown action: " + operation.getAction());
+            } else if (id == null && action.equals(UPSERT)) {
+                ids[i] = new ObjectId().toHexString();
+            } else if (id == null || !ObjectId.isValid(id)) {
+                results[i] = new BulkItemResult(i, id, "INVALID", "Invalid product ID");
+            } else {
+                ids[i] = id;
+                clientIds.add(new ObjectId(id));
+            }
+        }
+
+        // One query for the owners of all the existing products of the batch.
+        Map<String, String> owners = findOwners(clientIds);
+        for (int i = 0; i < count; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            boolean exists = owners.containsKey(ids[i]);
+            if (DELETE.equalsIgnoreCase(operations.get(i).getAction()) && !exists) {
+                results[i] = new BulkItemResult(i, ids[i], "NOT_FOUND", null);
+            } else if (exists && !admin && !principal.getId().equals(owners.get(ids[i]))) {
+                results[i] = new BulkItemResult(i, ids[i], "FORBIDDEN", "The product belongs to another user");
+            }
+        }
+
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (results[i] == null) {
+                pending.add(i);
+            }
+        }
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            executeChunk(pending.subList(from, Math.min(from + chunkSize, pending.size())), operations, ids, results, principal, admin);
+        }
+        if (!pending.isEmpty()) {
+            catalogVersion.productChanged(null);
+        }
+
+        Map<String, Long> counts = Arrays.stream(results)
+                .collect(Collectors.groupingBy(BulkItemResult::getStatus, TreeMap::new, Collectors.counting()));
+        return new BulkResponse(counts, Arrays.asList(results));
+    }
+
+    /**
+     * This is a helper method that sends one chunk of operations as an unordered bulkWrite, and records their outcome.
+     * The filters include the owner (unless the user is an administrator), so that a product that changed owner
+     * since the ownership query is never modified: the write then fails instead, and is reported as FAILED.
+     */
+    private void executeChunk(List<Integer> chunk, List<BulkProductOperation> operations, String[] ids,
+                              BulkItemResult[] results, UserPrincipal principal, boolean admin) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (int index : chunk) {
+            BulkProductOperation operation = operations.get(index);
+            Criteria criteria = Criteria.where("_id").is(new ObjectId(ids[index]));
+            if (!admin) {
+                criteria = criteria.and("userId").is(principal.getId());
+            }
+            if (UPSERT.equalsIgnoreCase(operation.getAction())) {
+                Update update = new Update()
+                        .set("name", operation.getName())
+                        .set("description", operation.getDescription())
+                        .set("price", operation.getPrice())
+                        .inc("version", 1);
+                if (admin) {
+                    update.setOnInsert("userId", principal.getId());
+                }
+                bulkOps.upsert(new Query(criteria), update);
+            } else {
+                bulkOps.remove(new Query(criteria));
+            }
+        }
+
+        BulkWriteResult result;
+        Map<Integer, String> errors = new HashMap<>();
+        try {
+            result = bulkOps.execute();
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+        }
+        Set<Integer> upserted = result.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+
+        for (int position = 0; position < chunk.size(); position++) {
+            int index = chunk.get(position);
+            if (errors.containsKey(position)) {
+                results[index] = new BulkItemResult(index, ids[index], "FAILED", errors.get(position));
+            } else if (DELETE.equalsIgnoreCase(operations.get(index).getAction())) {
+                results[index] = new BulkItemResult(index, ids[index], "DELETED", null);
+            } else {
+                String status = upserted.contains(position) ? "CREATED" : "UPDATED";
+                results[index] = new BulkItemResult(index, ids[index], status, null);
+            }
+        }
+    }
+
+    /**
+     * This is a helper method that finds the owners of a set of products with a single query.
+     * @param ids The IDs of the products.
+     * @return a Map from product ID to owner ID, containing only the products that exist.
+     */
+    private Map<String, String> findOwners(List<ObjectId> ids) {
+        Map<String, String> owners = new HashMap<>();
+        if (ids.isEmpty()) {
+            return owners;
+        }
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("_id").include("userId");
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            // A product without an owner is stored with an empty owner, so it still counts as existing.
+            owners.put(product.getId(), product.getUserId() == null ? "" : product.getUserId());
+        }
+        return owners;
+    }
+}
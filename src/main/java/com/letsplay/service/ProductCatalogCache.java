@@ -0,0 +1,429 @@
+package com.letsplay.service;
+
+import com.letsplay.model.Product;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ProductCatalogCache is a node-local copy of the products collection, indexed by ID and by owner (userId).
+ * <p>
+ * It is loaded when the application starts, and kept coherent by tailing a MongoDB change stream on the products
+ * collection, so it also sees the writes made by other nodes. Change streams need a replica set: a single-node
+ * replica set is enough (mongod --replSet rs0, then rs.initiate()).
+ * <p>
+ * The cache and the resume token of the change stream are written together to a local snapshot file at a fixed
+ * interval and on shutdown, by a separate thread, from a copy taken by the watcher thread, so that the changes
+ * keep being applied while a large catalog is being written. On restart, the snapshot is loaded and the change
+ * stream resumes right after it, so no full reload is needed. If there is no snapshot, or if MongoDB no longer has the history to resume from it
+ * (the oplog rolled over), the cache falls back to a full reload.
+ * <p>
+ * Until the cache is ready, and when it is disabled, isReady() returns false and callers must read from MongoDB.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogCache.class);
+
+    /**
+     * MongoDB error codes meaning the change stream cannot be resumed from the given token.
+     */
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(280, 286);
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of CatalogVersion here.
+     * Every change seen on the stream bumps it, so that ETags also follow the writes of other nodes.
+     */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /**
+     * Whether the cache is enabled. It needs MongoDB to run as a replica set.
+     */
+    @Value("${products.near-cache.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * The local file the cache and its resume token are saved to.
+     */
+    @Value("${products.near-cache.snapshot-file:products-cache.snapshot}")
+    private String snapshotFile;
+
+    /**
+     * How often, in seconds, the snapshot is written.
+     */
+    @Value("${products.near-cache.snapshot-interval-seconds:60}")
+    private long snapshotIntervalSeconds;
+
+    /**
+     * The products, by ID. ObjectId hex strings sort in the same order as the ObjectIds, so this map
+     * can also serve keyset pages in _id order.
+     */
+    private final ConcurrentSkipListMap<String, Product> productsById = new ConcurrentSkipListMap<>();
+
+    /**
+     * The IDs of the products of each owner.
+     */
+    private final Map<String, Set<String>> productIdsByUserId = new ConcurrentHashMap<>();
+
+    /**
+     * The resume token of the last change applied to the cache. Only touched by the watcher thread.
+     */
+    private BsonDocument resumeToken;
+
+    private volatile boolean ready;
+    private volatile boolean running;
+    private Thread watcher;
+
+    /**
+     * The single thread the snapshots are written on. Only the latest pending snapshot is kept in its queue.
+     */
+    private ThreadPoolExecutor snapshotWriter;
+
+    /**
+     * Starts the cache once the application is ready: it is loaded and then kept up to date by a background thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        snapshotWriter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-catalog-snapshot");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+        watcher = new Thread(this::watch, "product-catalog-cache");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops the watcher thread, and waits for the last snapshot to be written.
+     * @throws InterruptedException if interrupted while waiting for the watcher or snapshot thread.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (watcher != null) {
+            watcher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdown();
+            snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Checks whether the cache is loaded and can serve reads.
+     * @return true if reads can be served from the cache, false if they must go to MongoDB.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Finds a product by ID.
+     * @param id The ID of the product.
+     * @return an Optional containing the product if found, or an empty Optional otherwise.
+     */
+    public Optional<Product> findById(String id) {
+        return Optional.ofNullable(productsById.get(id));
+    }
+
+    /**
+     * Finds the products of an owner.
+     * @param userId The ID of the owner.
+     * @return the products of the owner, in no particular order.
+     */
+    public List<Product> findByUserId(String userId) {
+        return productIdsByUserId.getOrDefault(userId, Collections.emptySet()).stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the products that come after an ID, in _id order, like the keyset page query of ProductService.
+     * @param afterId The ID the page starts after, or null for the first page.
+     * @param limit The maximum number of products to return.
+     * @return the products of the page.
+     */
+    public List<Product> findPage(String afterId, int limit) {
+        Map<String, Product> tail = afterId == null ? productsById : productsById.tailMap(afterId, false);
+        return tail.values().stream().limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * The body of the watcher thread: load the cache, then apply the change stream until stopped.
+     * Any error other than a lost history reconnects from the last resume token.
+     */
+    private void watch() {
+        if (!loadSnapshot()) {
+            resumeToken = null;
+        }
+        long nextSnapshot = System.nanoTime() + TimeUnit.SECONDS.toNanos(snapshotIntervalSeconds);
+        while (running) {
+            try {
+                MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class));
+                ChangeStreamIterable<Document> changeStream = collection.watch()
+                        .fullDocument(FullDocument.UPDATE_LOOKUP)
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (resumeToken != null) {
+                    changeStream = changeStream.resumeAfter(resumeToken);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor()) {
+                    // The cursor is open, so no change can be missed: if we have no valid position, load everything now.
+                    if (resumeToken == null) {
+                        ready = false;
+                        fullReload();
+                    }
+                    ready = true;
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change != null) {
+                            if (!apply(change)) {
+                                // The collection was dropped or renamed: start over.
+                                ready = false;
+                                resumeToken = null;
+                                break;
+                            }
+                        }
+                        if (cursor.getResumeToken() != null) {
+                            resumeToken = cursor.getResumeToken();
+                        }
+                        if (System.nanoTime() >= nextSnapshot) {
+                            scheduleSnapshot();
+                            nextSnapshot = System.nanoTime() + TimeUnit.SECONDS.toNanos(snapshotIntervalSeconds);
+                        }
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (HISTORY_LOST_CODES.contains(e.getErrorCode())) {
+                    logger.warn("Cannot resume the products change stream, falling back to a full reload", e);
+                    ready = false;
+                    resumeToken = null;
+                } else {
+                    logger.warn("Products change stream failed, reconnecting", e);
+                    pause();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Products change stream failed, reconnecting", e);
+                pause();
+            }
+        }
+        if (ready) {
+            scheduleSnapshot();
+        }
+    }
+
+    /**
+     * Applies one change to the cache.
+     * @param change The change stream event.
+     * @return false if the change stream was invalidated (drop, rename), true otherwise.
+     */
+    private boolean apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                if (change.getFullDocument() != null) {
+                    put(mongoTemplate.getConverter().read(Product.class, change.getFullDocument()));
+                } else {
+                    // The document was deleted before it could be looked up; its delete event follows.
+                    remove(idOf(change.getDocumentKey()));
+                }
+            }
+            case DELETE -> remove(idOf(change.getDocumentKey()));
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                return false;
+            }
+            default -> {
+                return true;
+            }
+        }
+        catalogVersion.bump();
+        return true;
+    }
+
+    /**
+     * Replaces the whole cache with the current content of the collection.
+     */
+    private void fullReload() {
+        long start = System.nanoTime();
+        productsById.clear();
+        productIdsByUserId.clear();
+        try (Stream<Product> products = mongoTemplate.stream(new Query().cursorBatchSize(1000), Product.class)) {
+            products.forEach(this::put);
+        }
+        catalogVersion.bump();
+        logger.info("Loaded {} products into the catalog cache in {} ms", productsById.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void put(Product product) {
+        Product previous = productsById.put(product.getId(), product);
+        if (previous != null && previous.getUserId() != null && !previous.getUserId().equals(product.getUserId())) {
+            removeFromOwner(previous.getUserId(), previous.getId());
+        }
+        if (product.getUserId() != null) {
+            productIdsByUserId.computeIfAbsent(product.getUserId(), key -> ConcurrentHashMap.newKeySet()).add(product.getId());
+        }
+    }
+
+    private void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        Product previous = productsById.remove(id);
+        if (previous != null && previous.getUserId() != null) {
+            removeFromOwner(previous.getUserId(), id);
+        }
+    }
+
+    private void removeFromOwner(String userId, String id) {
+        productIdsByUserId.computeIfPresent(userId, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        if (documentKey == null) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    /**
+     * Copies the resume token and the products, on the watcher thread so that they match, and hands the copy
+     * over to the snapshot thread. Products are never modified in place, so copying the references is enough.
+     */
+    private void scheduleSnapshot() {
+        if (resumeToken == null) {
+            return;
+        }
+        BsonDocument token = resumeToken;
+        List<Product> products = new ArrayList<>(productsById.values());
+        snapshotWriter.execute(() -> saveSnapshot(token, products));
+    }
+
+    /**
+     * Writes the resume token (first line) and the products (one JSON document per line) to the snapshot file.
+     * The file is written to a temporary file first and then moved, so a crash never leaves a partial snapshot.
+     * @param token The resume token of the last change applied to the products.
+     * @param products The products.
+     */
+    private void saveSnapshot(BsonDocument token, List<Product> products) {
+        Path target = Paths.get(snapshotFile);
+        Path temporary = Paths.get(snapshotFile + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write(token.toJson());
+            writer.newLine();
+            for (Product product : products) {
+                Document document = new Document();
+                mongoTemplate.getConverter().write(product, document);
+                writer.write(document.toJson());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write the catalog cache snapshot to {}", temporary, e);
+            return;
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not move the catalog cache snapshot to {}", target, e);
+        }
+    }
+
+    /**
+     * Loads the snapshot file, if there is one.
+     * @return true if the snapshot was loaded and resumeToken is set, false if a full reload is needed.
+     */
+    private boolean loadSnapshot() {
+        Path source = Paths.get(snapshotFile);
+        if (!Files.isRegularFile(source)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String tokenLine = reader.readLine();
+            if (tokenLine == null) {
+                return false;
+            }
+            BsonDocument token = BsonDocument.parse(tokenLine);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                put(mongoTemplate.getConverter().read(Product.class, Document.parse(line)));
+            }
+            resumeToken = token;
+            logger.info("Loaded {} products from the catalog cache snapshot {}", productsById.size(), source);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read the catalog cache snapshot {}, falling back to a full reload", source, e);
+            productsById.clear();
+            productIdsByUserId.clear();
+            return false;
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.letsplay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.letsplay.dto.ProductPage;
+import com.letsplay.model.Product;
+import com.letsplay.repository.ProductRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * This class is a Spring service that contains the business logic for Product operations.
+ * @Service annotation marks this class as a Spring service, which means it will be managed by the Spring container.
+ */
+@Service
+public class ProductService {
+
+    /**
+     * The fields of a Product that a client may select. The ID is always returned, since the cursor is built from it.
+     */
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("name", "description", "price", "userId");
+
+    /**
+     * Named projections, which expand to a fixed set of fields.
+     * "summary" is what listing views need: the (large) description and the owner are left out.
+     */
+    private static final Map<String, List<String>> NAMED_PROJECTIONS = Map.of(
+            "summary", List.of("name", "price")
+    );
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     * It is used for queries that the ProductRepository cannot express, such as keyset pagination.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of ProductRepository here.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Spring will automatically inject an instance of ProductCatalogCache here.
+     * When it is ready, reads are served from it instead of MongoDB.
+     */
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    /**
+     * Spring will automatically inject the application's ObjectMapper here, so that the export
+     * serializes products exactly like the other endpoints do.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * The number of products the export fetches from MongoDB per cursor batch.
+     */
+    @Value("${products.export.batch-size:500}")
+    private int exportBatchSize;
+
+    /**
+     * The page size used when the client does not ask for one.
+     */
+    @Value("${products.page.default-size:20}")
+    private int defaultPageSize;
+
+    /**
+     * The largest page size a client may ask for. Larger values are capped to it.
+     */
+    @Value("${products.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * This method returns one page of products, ordered by ID.
+     * It uses keyset (cursor) pagination: the next page starts right after the last ID of the previous page,
+     * so every page is an index range scan on _id and deep pages cost the same as the first one.
+     * @param cursor The opaque cursor returned with the previous page, or null for the first page.
+     * @param size The requested page size, or null for the default size.
+     * @param fields The fields to return (see applyProjection), or null for all fields.
+     * @return a ProductPage with the products and the cursor of the next page.
+     */
+    public ProductPage getProducts(String cursor, Integer size, String fields) {
+        int pageSize = resolvePageSize(size);
+        // The catalog cache holds whole products, so it only serves reads without a projection.
+        if (productCatalogCache.isReady() && (fields == null || fields.isBlank())) {
+            String afterId = cursor == null || cursor.isEmpty() ? null : decodeCursor(cursor).toHexString();
+            return toPage(productCatalogCache.findPage(afterId, pageSize + 1), pageSize);
+        }
+        List<Product> products = mongoTemplate.find(buildPageQuery(cursor, pageSize, fields), Product.class);
+        return toPage(products, pageSize);
+    }
+
+    /**
+     * This method returns a single product, from the catalog cache when it is ready, or from MongoDB otherwise.
+     * @param id The ID of the product.
+     * @return an Optional containing the product if found, or an empty Optional otherwise.
+     */
+    public Optional<Product> getProductById(String id) {
+        if (productCatalogCache.isReady()) {
+            return productCatalogCache.findById(id);
+        }
+        return productRepository.findById(id);
+    }
+
+    /**
+     * This method returns all the products of a user, from the catalog cache when it is ready, or from MongoDB otherwise.
+     * @param userId The ID of the user who owns the products.
+     * @return the list of the user's products.
+     */
+    public List<Product> getProductsByUserId(String userId) {
+        if (productCatalogCache.isReady()) {
+            return productCatalogCache.findByUserId(userId);
+        }
+        return productRepository.findByUserId(userId);
+    }
+
+    /**
+     * This method caps a requested page size to the configured limits.
+     * @param size The requested page size, or null for the default size.
+     * @return the page size to use.
+     */
+    public int resolvePageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    /**
+     * This method builds the query of one page of products. It is shared by the blocking and the reactive listing.
+     * @param cursor The opaque cursor returned with the previous page, or null for the first page.
+     * @param pageSize The page size, as returned by resolvePageSize.
+     * @param fields The fields to return (see applyProjection), or null for all fields.
+     * @return the query, which fetches one product more than the page size.
+     */
+    public Query buildPageQuery(String cursor, int pageSize, String fields) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        applyProjection(query, fields);
+        if (cursor != null && !cursor.isEmpty()) {
+            query.addCriteria(Criteria.where("_id").gt(decodeCursor(cursor)));
+        }
+        // Fetch one extra product to know whether there is a next page, without a count query.
+        query.limit(pageSize + 1);
+        return query;
+    }
+
+    /**
+     * This method turns the result of a page query into a ProductPage.
+     * @param products The products returned by the query built by buildPageQuery.
+     * @param pageSize The page size, as returned by resolvePageSize.
+     * @return a ProductPage with the products and the cursor of the next page.
+     */
+    public ProductPage toPage(List<Product> products, int pageSize) {
+        if (products.size() <= pageSize) {
+            return new ProductPage(products, null);
+        }
+        List<Product> items = products.subList(0, pageSize);
+        return new ProductPage(items, encodeCursor(items.get(pageSize - 1).getId()));
+    }
+
+    /**
+     * This method builds the query of the catalog export. It is shared by the blocking and the reactive export.
+     * @param fields The fields to export (see applyProjection), or null for all fields.
+     * @return the query, which reads the products through a cursor in batches of the configured size.
+     */
+    public Query buildExportQuery(String fields) {
+        Query query = new Query().cursorBatchSize(exportBatchSize);
+        applyProjection(query, fields);
+        return query;
+    }
+
+    /**
+     * This method writes every product to the output stream as newline-delimited JSON (one product per line).
+     * Products are read through a server-side MongoDB cursor, one batch at a time, so the heap usage stays flat
+     * whatever the size of the collection. If the client disconnects, the next write fails with an IOException,
+     * and closing the stream kills the cursor on the server right away.
+     * @param outputStream The output stream of the HTTP response.
+     * @param fields The fields to export (see applyProjection), or null for all fields.
+     * @throws IOException if writing to the output stream fails.
+     */
+    public void exportProducts(OutputStream outputStream, String fields) throws IOException {
+        Query query = buildExportQuery(fields);
+        ObjectWriter writer = objectMapper.writerFor(Product.class);
+
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            Iterator<Product> iterator = products.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                outputStream.write(writer.writeValueAsBytes(iterator.next()));
+                outputStream.write('\n');
+                // Flush once per cursor batch, so the client receives data while the export is running.
+                if (++written % exportBatchSize == 0) {
+                    outputStream.flush();
+                }
+            }
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * This is a helper method to turn a fields selector into a MongoDB field projection,
+     * so that unused fields are never read from disk, sent over the wire or put on the heap.
+     * The selector is a comma-separated list of field names and/or named projections, e.g. "summary" or "name,price".
+     * The ID is always included. Fields that are not selected are null in the returned products, and left out of the JSON.
+     * @param query The query to add the projection to.
+     * @param fields The fields selector, or null (or empty) for all fields.
+     * @throws ResponseStatusException with status 400 if the selector names an unknown field.
+     */
+    private void applyProjection(Query query, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || name.equals("id")) {
+                continue;
+            }
+            if (NAMED_PROJECTIONS.containsKey(name)) {
+                selected.addAll(NAMED_PROJECTIONS.get(name));
+            } else if (SELECTABLE_FIELDS.contains(name)) {
+                selected.add(name);
+            } else {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + name);
+            }
+        }
+        // An inclusion projection always returns _id unless it is explicitly excluded.
+        query.fields().include("_id");
+        selected.forEach(name -> query.fields().include(name));
+    }
+
+    /**
+     * This is a helper method to turn the last ID of a page into an opaque cursor.
+     * @param lastId The ID of the last product of the page.
+     * @return the cursor.
+     */
+    private String encodeCursor(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This is a helper method to turn a cursor back into the ID the next page starts after.
+     * @param cursor The cursor sent by the client.
+     * @return the ID of the last product of the previous page.
+     * @throws ResponseStatusException with status 400 if the cursor is not valid.
+     */
+    private ObjectId decodeCursor(String cursor) {
+        try {
+            String lastId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new ObjectId(lastId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.letsplay.service;
+
+import com.letsplay.dto.AuthResponse;
+import com.letsplay.model.RefreshToken;
+import com.letsplay.security.JwtUtil;
+import com.letsplay.security.TokenRevocationList;
+import com.letsplay.security.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * This class is a Spring service that issues, rotates and revokes refresh tokens.
+ * <p>
+ * A login returns a short-lived access token (a JWT) and an opaque refresh token. Access tokens are checked without
+ * any database call; the refresh endpoint is the only place where the database is consulted, to swap a refresh token
+ * for a new pair with up-to-date user data. Each refresh token can be used once: presenting a used token again means it
+ * was stolen (or replayed), so its whole family is revoked, together with the access tokens issued with it.
+ */
+@Service
+public class RefreshTokenService {
+
+    /**
+     * The number of random bytes of a refresh token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of JwtUtil here.
+     */
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    /**
+     * Spring will automatically inject an instance of TokenRevocationList here.
+     */
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * Spring will automatically inject an instance of UserDetailsServiceImpl here.
+     * It reloads the user on refresh, so that a new access token carries the current role and token version.
+     */
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    /**
+     * The lifetime of a refresh token, in seconds. Every refresh issues a token with a full lifetime.
+     */
+    @Value("${jwt.refresh-token-ttl-seconds:1209600}")
+    private long refreshTokenTtlSeconds;
+
+    /**
+     * Issues an access token and the first refresh token of a new family, after a successful login.
+     * @param userDetails The authenticated user.
+     * @return an AuthResponse with both tokens.
+     */
+    public AuthResponse issue(UserDetails userDetails) {
+        return issue(userDetails, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Swaps a refresh token for a new access token and a new refresh token of the same family.
+     * @param refreshToken The refresh token presented by the client.
+     * @return an AuthResponse with both new tokens.
+     * @throws ResponseStatusException with status 401 if the token is unknown, expired, used or revoked.
+     */
+    public AuthResponse refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        String tokenHash = hash(refreshToken);
+        // Mark the token as used atomically, so that two concurrent refreshes with the same token cannot both succeed.
+        Query unused = new Query(Criteria.where("tokenHash").is(tokenHash)
+                .and("used").is(false)
+                .and("revoked").is(false)
+                .and("expiresAt").gt(new Date()));
+        RefreshToken current = mongoTemplate.findAndModify(unused, new Update().set("used", true),
+                FindAndModifyOptions.options().returnNew(true), RefreshToken.class);
+        if (current == null) {
+            RefreshToken known = mongoTemplate.findOne(new Query(Criteria.where("tokenHash").is(tokenHash)), RefreshToken.class);
+            if (known != null && (known.isUsed() || known.isRevoked())) {
+                // A token that was already rotated is being replayed.
+                revokeFamily(known.getFamilyId());
+            }
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(current.getEmail());
+        } catch (UsernameNotFoundException e) {
+            revokeFamily(current.getFamilyId());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        return issue(userDetails, current.getFamilyId());
+    }
+
+    /**
+     * Logs a client out: revokes the family of its refresh token, with the access tokens issued with it,
+     * and its current access token. Missing, unknown and invalid tokens are ignored.
+     * @param refreshToken The refresh token presented by the client, or null.
+     * @param accessToken The access token presented by the client, or null.
+     */
+    public void logout(String refreshToken, String accessToken) {
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            RefreshToken known = mongoTemplate.findOne(new Query(Criteria.where("tokenHash").is(hash(refreshToken))), RefreshToken.class);
+            if (known != null) {
+                revokeFamily(known.getFamilyId());
+            }
+        }
+        Claims claims = accessToken != null ? jwtUtil.validateAndGetClaims(accessToken) : null;
+        if (claims != null) {
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration());
+        }
+    }
+
+    /**
+     * This is a helper method that issues an access token and a refresh token in a family.
+     * @param userDetails The user.
+     * @param familyId The ID of the token family.
+     * @return an AuthResponse with both tokens.
+     */
+    private AuthResponse issue(UserDetails userDetails, String familyId) {
+        long now = System.currentTimeMillis();
+        String accessTokenId = UUID.randomUUID().toString();
+        Date accessTokenExpiresAt = new Date(now + jwtUtil.getAccessTokenTtlSeconds() * 1000);
+        String jwt = jwtUtil.generateToken(userDetails, accessTokenId, accessTokenExpiresAt);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken document = new RefreshToken();
+        document.setTokenHash(hash(refreshToken));
+        document.setEmail(userDetails.getUsername());
+        document.setFamilyId(familyId);
+        document.setAccessTokenId(accessTokenId);
+        document.setAccessTokenExpiresAt(accessTokenExpiresAt);
+        document.setExpiresAt(new Date(now + refreshTokenTtlSeconds * 1000));
+        mongoTemplate.insert(document);
+
+        return new AuthResponse(jwt, refreshToken, jwtUtil.getAccessTokenTtlSeconds());
+    }
+
+    /**
+     * This is a helper method that revokes every refresh token of a family,
+     * and the access tokens issued with them that have not expired yet.
+     * @param familyId The ID of the token family.
+     */
+    private void revokeFamily(String familyId) {
+        Query family = new Query(Criteria.where("familyId").is(familyId));
+        mongoTemplate.updateMulti(family, new Update().set("revoked", true), RefreshToken.class);
+        Query liveAccessTokens = new Query(Criteria.where("familyId").is(familyId).and("accessTokenExpiresAt").gt(new Date()));
+        for (RefreshToken token : mongoTemplate.find(liveAccessTokens, RefreshToken.class)) {
+            tokenRevocationList.revoke(token.getAccessTokenId(), token.getAccessTokenExpiresAt());
+        }
+    }
+
+    /**
+     * This is a helper method that computes the SHA-256 hash of a refresh token, in hexadecimal.
+     * @param refreshToken The refresh token.
+     * @return the hash.
+     */
+    private static String hash(String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.letsplay.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letsplay.dto.BulkItemResult;
+import com.letsplay.dto.ImportReport;
+import com.letsplay.model.User;
+import com.letsplay.security.IsolatedPasswordEncoder;
+import com.letsplay.security.UserLookupCache;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a Spring service that imports users in bulk, e.g. when migrating accounts from another system.
+ * <p>
+ * Records are read one by one from a stream of newline-delimited JSON, so the input is never held in memory.
+ * Passwords are hashed on a dedicated, size-limited worker pool (one thread per core by default), and the users
+ * are written with batched, unordered inserts. A duplicate email (rejected by the unique index on users.email)
+ * is reported for that record only, and never aborts the batch.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    /**
+     * The MongoDB error code of a duplicate key.
+     */
+    private static final int DUPLICATE_KEY = 11000;
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of PasswordEncoder here.
+     */
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    /**
+     * Spring will automatically inject the application's ObjectMapper here.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Spring will automatically inject an instance of UserLookupCache here.
+     * Every write to a user must evict it from this cache.
+     */
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    /**
+     * The number of users inserted per batch.
+     */
+    @Value("${users.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * The maximum number of failed records listed in the report. Further failures are only counted,
+     * so that a bad input cannot make the report grow without limit.
+     */
+    @Value("${users.import.max-reported-failures:1000}")
+    private int maxReportedFailures;
+
+    /**
+     * The number of password hashing threads.
+     */
+    private final int parallelism;
+
+    /**
+     * The pool the passwords are hashed on. Its queue is bounded, and when it is full the reading thread hashes
+     * the password itself, which slows the reading down instead of buffering the whole input.
+     */
+    private final ExecutorService hashingPool;
+
+    /**
+     * Constructor for UserImportService.
+     * @param configuredParallelism The number of hashing threads, or 0 to use one per available core.
+     */
+    public UserImportService(@Value("${users.import.parallelism:0}") int configuredParallelism) {
+        this.parallelism = configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashingPool = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Stops the hashing pool when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    /**
+     * This method imports users from a stream of newline-delimited JSON, one User per line.
+     * The password of each record is in clear text and is hashed before it is stored.
+     * Records without a role get the "USER" role.
+     * @param inputStream The input stream of the request.
+     * @return an ImportReport with the counts, the failed records and throughput metrics.
+     * @throws IOException if the input cannot be read or is not valid JSON.
+     */
+    public ImportReport importUsers(InputStream inputStream) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Long> counts = new TreeMap<>();
+        List<BulkItemResult> failures = new ArrayList<>();
+        long[] timings = new long[2]; // hashing and insert nanoseconds
+
+        List<User> batch = new ArrayList<>(batchSize);
+        List<Future<String>> hashes = new ArrayList<>(batchSize);
+        List<Integer> indexes = new ArrayList<>(batchSize);
+        int index = 0;
+
+        try (MappingIterator<User> records = objectMapper.readerFor(User.class).readValues(inputStream)) {
+            while (records.hasNextValue()) {
+                int current = index++;
+                User user;
+                try {
+                    user = records.nextValue();
+                } catch (JsonMappingException e) {
+                    // The iterator skips the rest of the bad record, so the import goes on with the next one.
+                    record(counts, failures, new BulkItemResult(current, null, "INVALID", e.getOriginalMessage()));
+                    continue;
+                }
+                if (user.getEmail() == null || user.getEmail().isBlank() || user.getPassword() == null) {
+                    record(counts, failures, new BulkItemResult(current, user.getEmail(), "INVALID", "Email and password are required"));
+                    continue;
+                }
+                String password = user.getPassword();
+                PasswordEncoder encoder = importEncoder();
+                hashes.add(hashingPool.submit(() -> encoder.encode(password)));
+                batch.add(user);
+                indexes.add(current);
+                if (batch.size() == batchSize) {
+                    insertBatch(batch, hashes, indexes, counts, failures, timings);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, hashes, indexes, counts, failures, timings);
+        }
+
+        ImportReport report = new ImportReport(counts, failures, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                TimeUnit.NANOSECONDS.toMillis(timings[0]), TimeUnit.NANOSECONDS.toMillis(timings[1]), parallelism);
+        logger.info("Imported users: {} in {} ms ({} records/s, {} hashing threads)",
+                counts, report.getElapsedMillis(), String.format("%.1f", report.getRecordsPerSecond()), parallelism);
+        return report;
+    }
+
+    /**
+     * This is a helper method that waits for the password hashes of a batch, inserts it with one unordered bulk insert,
+     * and records the outcome of every record. The lists are cleared afterwards.
+     */
+    private void insertBatch(List<User> batch, List<Future<String>> hashes, List<Integer> indexes,
+                             Map<String, Long> counts, List<BulkItemResult> failures, long[] timings) throws IOException {
+        long hashStart = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            User user = batch.get(i);
+            try {
+                user.setPassword(hashes.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while hashing passwords", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Password hashing failed", e.getCause());
+            }
+            // Imported users always start at token version 0, and get the default role if they have none.
+            user.setId(null);
+            user.setTokenVersion(0);
+            if (user.getRole() == null || user.getRole().isBlank()) {
+                user.setRole("USER");
+            }
+        }
+        long insertStart = System.nanoTime();
+        timings[0] += insertStart - hashStart;
+
+        Map<Integer, BulkWriteError> errors = new TreeMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(batch).execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error));
+        }
+        timings[1] += System.nanoTime() - insertStart;
+
+        for (int i = 0; i < batch.size(); i++) {
+            User user = batch.get(i);
+            BulkWriteError error = errors.get(i);
+            if (error == null) {
+                counts.merge("CREATED", 1L, Long::sum);
+                userLookupCache.evict(user.getEmail());
+            } else if (error.getCode() == DUPLICATE_KEY) {
+                record(counts, failures, new BulkItemResult(indexes.get(i), user.getEmail(), "DUPLICATE", "Email already exists"));
+            } else {
+                record(counts, failures, new BulkItemResult(indexes.get(i), user.getEmail(), "FAILED", error.getMessage()));
+            }
+        }
+        batch.clear();
+        hashes.clear();
+        indexes.clear();
+    }
+
+    /**
+     * This is a helper method that returns the encoder the import hashes with. The import has its own bounded pool,
+     * so it bypasses the PasswordHashingExecutor used by logins and sign-ups, and never competes with them for it.
+     * @return the PasswordEncoder doing the actual hashing.
+     */
+    private PasswordEncoder importEncoder() {
+        return passwordEncoder instanceof IsolatedPasswordEncoder isolated ? isolated.getDelegate() : passwordEncoder;
+    }
+
+    private void record(Map<String, Long> counts, List<BulkItemResult> failures, BulkItemResult result) {
+        counts.merge(result.getStatus(), 1L, Long::sum);
+        if (failures.size() < maxReportedFailures) {
+            failures.add(result);
+        }
+    }
+}
@@ -2,9 +2,18 @@ package com.letsplay.service;
 
 import com.letsplay.model.User;
 import com.letsplay.repository.UserRepository;
+import com.letsplay.security.TokenVersionRegistry;
+import com.letsplay.security.UserLookupCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * This class is a Spring service that contains the business logic for User operations.
@@ -27,6 +36,33 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /**
+     * Spring will automatically inject an instance of UserLookupCache here.
+     * Every write to a user must evict it from this cache.
+     */
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    /**
+     * Spring will automatically inject an instance of InvalidationBus here.
+     * Every write to a user is sent to the other nodes, so that they evict it from their caches too.
+     */
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * Spring will automatically inject an instance of MongoTemplate here.
+     */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Spring will automatically inject an instance of TokenVersionRegistry here.
+     * The InvalidationBus only reaches the other nodes, so this node records its own changes directly.
+     */
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
     /**
      * This method creates a new user.
      * It first encodes the user's password and then saves the user to the database.
@@ -36,13 +72,50 @@ public class UserService {
     public User createUser(User user) {
         // Encode the user's password before saving it to the database.
         user.setPassword(passwordEncoder.encode(user.getPassword()));
+        // A new user always starts at token version 0, whatever the client sent.
+        user.setTokenVersion(0);
         // Save the user to the database using the UserRepository.
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        // Evict the email from the cache, so that no stale entry survives the write.
+        userLookupCache.evict(savedUser.getEmail());
+        invalidationBus.publish(InvalidationEvent.userChanged(savedUser.getEmail(), savedUser.getTokenVersion()));
+        return savedUser;
+    }
+
+    /**
+     * This method changes the password and/or the role of a user.
+     * Its token version is incremented in the same update, so that the tokens issued before the change are rejected,
+     * including the stateless ones, which are only checked against the TokenVersionRegistry.
+     * @param email The email of the user.
+     * @param password The new password (in plain text), or null to keep it.
+     * @param role The new role, or null to keep it.
+     * @return The updated User object.
+     * @throws ResponseStatusException with status 400 if nothing is changed, or 404 if the user does not exist.
+     */
+    public User updateCredentials(String email, String password, String role) {
+        if (password == null && role == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to update");
+        }
+        Update update = new Update().inc("tokenVersion", 1);
+        if (password != null) {
+            update.set("password", passwordEncoder.encode(password));
+        }
+        if (role != null) {
+            update.set("role", role.toUpperCase());
+        }
+        User updatedUser = mongoTemplate.findAndModify(new Query(Criteria.where("email").is(email)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (updatedUser == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        userLookupCache.evict(email);
+        tokenVersionRegistry.userChanged(email, updatedUser.getTokenVersion());
+        invalidationBus.publish(InvalidationEvent.userChanged(email, updatedUser.getTokenVersion()));
+        return updatedUser;
     }
 
     // You can add other service methods here, for example:
     // - A method to get a user by their ID.
     // - A method to get all users.
-    // - A method to update a user.
     // - A method to delete a user.
 }
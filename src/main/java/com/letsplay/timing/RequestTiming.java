@@ -0,0 +1,141 @@
+package com.letsplay.timing;
+
+import java.util.Locale;
+
+/**
+ * RequestTiming collects where the time of the current request goes, phase by phase, for the Server-Timing header
+ * (see com.letsplay.config.ServerTimingFilter). It is bound to the request thread for the duration of the request.
+ * <p>
+ * The code being measured calls the static methods, which do nothing, without even reading the clock, when the
+ * current thread is not timing a request, e.g. because request timing is disabled. The state lives only in that
+ * thread-local, so several application contexts in one JVM do not affect each other. Phases may overlap:
+ * e.g. the user lookup includes its MongoDB query, which is also counted in the db phase.
+ */
+public final class RequestTiming {
+
+    /**
+     * The phases of a request, with their Server-Timing metric name and description.
+     */
+    public enum Phase {
+        JWT("jwt", "JWT validation"),
+        USER("user", "User lookup"),
+        BCRYPT("bcrypt", "Password hashing"),
+        DB("db", "MongoDB"),
+        JSON("json", "JSON conversion");
+
+        private final String metric;
+        private final String description;
+
+        Phase(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+
+    /**
+     * The start time of the phases in progress, or 0. A phase in progress when the header is written
+     * (e.g. JSON conversion, when the response is committed) is counted up to that point.
+     */
+    private final long[] openSince = new long[PHASES.length];
+
+    private RequestTiming() {
+    }
+
+    /**
+     * Starts timing a request on the current thread. Called by ServerTimingFilter.
+     * @return the RequestTiming of the request.
+     */
+    public static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Stops timing the request of the current thread. Called by ServerTimingFilter.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Adds the duration of a phase that was already measured, to the current request if it is timed.
+     * @param phase The phase.
+     * @param elapsedNanos The duration, in nanoseconds.
+     */
+    public static void add(Phase phase, long elapsedNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.nanos[phase.ordinal()] += elapsedNanos;
+            timing.counts[phase.ordinal()]++;
+        }
+    }
+
+    /**
+     * Starts a phase of the current request.
+     * @param phase The phase.
+     * @return the start time to pass to stop(), or 0 if the request is not timed.
+     */
+    public static long start(Phase phase) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        timing.openSince[phase.ordinal()] = now;
+        return now;
+    }
+
+    /**
+     * Ends a phase of the current request.
+     * @param phase The phase.
+     * @param start The value returned by start().
+     */
+    public static void stop(Phase phase, long start) {
+        if (start == 0) {
+            return;
+        }
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.openSince[phase.ordinal()] = 0;
+            timing.nanos[phase.ordinal()] += System.nanoTime() - start;
+            timing.counts[phase.ordinal()]++;
+        }
+    }
+
+    /**
+     * Formats the phases that occurred, and the total time so far, as the value of a Server-Timing header, e.g.
+     * jwt;dur=0.041;desc="JWT validation", db;dur=2.310;desc="MongoDB (2)", total;dur=3.902
+     * @return the header value. Durations are in milliseconds.
+     */
+    public String toHeader() {
+        long now = System.nanoTime();
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : PHASES) {
+            int i = phase.ordinal();
+            long open = openSince[i] != 0 ? now - openSince[i] : 0;
+            if (counts[i] == 0 && open == 0) {
+                continue;
+            }
+            header.append(phase.metric).append(";dur=").append(millis(nanos[i] + open))
+                    .append(";desc=\"").append(phase.description);
+            if (counts[i] > 1) {
+                header.append(" (").append(counts[i]).append(')');
+            }
+            header.append("\", ");
+        }
+        return header.append("total;dur=").append(millis(now - startNanos)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
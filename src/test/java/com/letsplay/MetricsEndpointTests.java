@@ -0,0 +1,98 @@
+package com.letsplay;
+
+import com.letsplay.model.User;
+import com.letsplay.security.JwtUtil;
+import com.letsplay.security.UserDetailsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the Prometheus scrape endpoint is only available to admins, and exposes the endpoint, MongoDB
+ * and authentication metrics. Metrics export is disabled in tests by default, hence @AutoConfigureObservability.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricsEndpointTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private UserDetailsServiceImpl userDetailsService;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	private User admin;
+
+	@AfterEach
+	void removeAdmin() {
+		if (admin != null) {
+			mongoTemplate.remove(admin);
+		}
+	}
+
+	@Test
+	void healthIsPublicAndPrometheusRequiresAnAdmin() {
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("/actuator/health", String.class).getStatusCode());
+		HttpStatusCode anonymous = restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode();
+		assertTrue(anonymous.value() == 401 || anonymous.value() == 403, () -> "Got " + anonymous);
+	}
+
+	@Test
+	void exposesPrometheusMetrics() {
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/products", String.class).getStatusCode());
+
+		ResponseEntity<String> response = restTemplate.exchange("/actuator/prometheus", HttpMethod.GET,
+				new HttpEntity<>(adminHeaders()), String.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		String metrics = response.getBody();
+		for (String metric : new String[] {
+				"http_server_requests_seconds_bucket",
+				"uri=\"/api/products\"",
+				"mongodb_driver_commands_seconds_count",
+				"mongodb_driver_pool_size",
+				"jwt_generate_seconds_count",
+				"jwt_validate_seconds_count",
+				"password_encode_seconds_count",
+				"password_match_seconds_count",
+				"user_details_load_seconds_count"}) {
+			assertTrue(metrics.contains(metric), () -> "Missing metric " + metric);
+		}
+	}
+
+	/**
+	 * Creates an admin and returns the headers authenticating as this admin.
+	 */
+	private HttpHeaders adminHeaders() {
+		admin = new User();
+		admin.setName("Metrics");
+		admin.setEmail("metrics-" + UUID.randomUUID() + "@example.com");
+		admin.setPassword("not-a-hash");
+		admin.setRole("ADMIN");
+		admin = mongoTemplate.insert(admin);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(jwtUtil.generateToken(userDetailsService.loadUserByUsername(admin.getEmail())));
+		return headers;
+	}
+
+}
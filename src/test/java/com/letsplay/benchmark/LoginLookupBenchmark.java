@@ -0,0 +1,118 @@
+package com.letsplay.benchmark;
+
+import com.letsplay.LetsPlayApplication;
+import com.letsplay.controller.AuthController;
+import com.letsplay.dto.AuthRequest;
+import com.letsplay.model.User;
+import com.letsplay.security.JwtUtil;
+import com.letsplay.service.UserService;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the MongoDB queries on the users collection per login, for the login path of AuthController
+ * and for the previous path that loaded the user a second time after the authentication.
+ * The user lookup cache is disabled, so that every lookup reaches MongoDB. The application runs against a fresh
+ * database on the MongoDB of benchmark.mongodb-uri (the local mongod by default), which is dropped afterwards.
+ * Run it with: mvn -Pbenchmark test -Dtest=LoginLookupBenchmark
+ */
+@Tag("benchmark")
+class LoginLookupBenchmark {
+
+	private static final int LOGINS = Integer.getInteger("benchmark.logins", 500);
+	private static final String MONGODB_URI = System.getProperty("benchmark.mongodb-uri", "mongodb://localhost:27017");
+	private static final String PASSWORD = "benchmark-password";
+
+	@Test
+	void compareLoginPaths() throws Exception {
+		AtomicLong userFinds = new AtomicLong();
+		CommandListener counter = new CommandListener() {
+			@Override
+			public void commandStarted(CommandStartedEvent event) {
+				if ("find".equals(event.getCommandName()) && "users".equals(event.getCommand().getString("find").getValue())) {
+					userFinds.incrementAndGet();
+				}
+			}
+		};
+		MongoClientSettingsBuilderCustomizer customizer = builder -> builder.addCommandListener(counter);
+
+		String database = "lets-play-benchmark-" + System.currentTimeMillis();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LetsPlayApplication.class)
+				.initializers(ctx -> ctx.getBeanFactory().registerSingleton("loginCommandCounter", customizer))
+				// The lowest BCrypt cost keeps the run short; it does not change the number of queries.
+				.properties("server.port=0", "user-cache.enabled=false", "security.password-hashing.bcrypt-strength=4",
+						"spring.data.mongodb.uri=" + MONGODB_URI + "/" + database)
+				.run()) {
+			MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+			try {
+				String email = seed(context);
+				AuthRequest request = new AuthRequest();
+				request.setEmail(email);
+				request.setPassword(PASSWORD);
+
+				AuthController authController = context.getBean(AuthController.class);
+				AuthenticationManager authenticationManager = context.getBean(AuthenticationManager.class);
+				UserDetailsService userDetailsService = context.getBean(UserDetailsService.class);
+				JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+
+				// Warm up both paths, and let a possible re-hash of the seeded password happen outside the measurement.
+				for (int i = 0; i < 50; i++) {
+					authController.createAuthenticationToken(request);
+				}
+
+				userFinds.set(0);
+				long start = System.nanoTime();
+				for (int i = 0; i < LOGINS; i++) {
+					authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, PASSWORD));
+					jwtUtil.generateToken(userDetailsService.loadUserByUsername(email));
+				}
+				double twoLookupMillis = (System.nanoTime() - start) / 1e6 / LOGINS;
+				double twoLookupFinds = userFinds.getAndSet(0) / (double) LOGINS;
+
+				start = System.nanoTime();
+				for (int i = 0; i < LOGINS; i++) {
+					authController.createAuthenticationToken(request);
+				}
+				double singleLookupMillis = (System.nanoTime() - start) / 1e6 / LOGINS;
+				double singleLookupFinds = userFinds.get() / (double) LOGINS;
+
+				System.out.println("=== Login lookup benchmark (" + LOGINS + " logins) ===");
+				System.out.printf("authenticate + loadUserByUsername  users finds/login %.2f  %.3f ms/login%n", twoLookupFinds, twoLookupMillis);
+				System.out.printf("authenticated principal            users finds/login %.2f  %.3f ms/login%n", singleLookupFinds, singleLookupMillis);
+
+				assertEquals(1.0, singleLookupFinds, 0.001);
+				assertTrue(singleLookupFinds < twoLookupFinds);
+			} finally {
+				mongoTemplate.getDb().drop();
+			}
+		}
+	}
+
+	/**
+	 * Creates a user to log in with and returns the user's email.
+	 */
+	private String seed(ConfigurableApplicationContext context) {
+		User user = new User();
+		user.setName("Benchmark");
+		user.setEmail("benchmark-" + UUID.randomUUID() + "@example.com");
+		user.setPassword(PASSWORD);
+		user.setRole("USER");
+		return context.getBean(UserService.class).createUser(user).getEmail();
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.letsplay.benchmark;
+
+import com.letsplay.LetsPlayApplication;
+import com.letsplay.config.VirtualThreadPinningMonitor;
+import com.letsplay.model.Product;
+import com.letsplay.model.User;
+import com.letsplay.repository.ProductRepository;
+import com.letsplay.service.UserService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares throughput and p99 latency of GET /api/products and POST /api/auth/login
+ * between Tomcat on platform threads and Tomcat on virtual threads, and reports virtual thread pinning.
+ * The application is started twice, once per thread model, each time against a fresh database on the MongoDB of
+ * benchmark.mongodb-uri (the local mongod by default), which is dropped afterwards.
+ * <p>
+ * The BCrypt cost and the password hashing executor are pinned, with a queue that holds every client, so that the
+ * logins are not mostly fast 503 rejections of the admission control. Only 200 responses count in the latencies
+ * and the throughput; the benchmark fails if more than benchmark.max-error-ratio of the requests fail.
+ * Run it with: mvn -Pjava21,benchmark test -Dtest=ThreadModelBenchmark
+ */
+@Tag("benchmark")
+class ThreadModelBenchmark {
+
+	private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+	private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 10));
+	private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("benchmark.measurement-seconds", 30));
+	private static final String MONGODB_URI = System.getProperty("benchmark.mongodb-uri", "mongodb://localhost:27017");
+	private static final String PASSWORD = "benchmark-password";
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+	private static final int BCRYPT_STRENGTH = Integer.getInteger("benchmark.bcrypt-strength", 10);
+	private static final int HASHING_THREADS = Integer.getInteger("benchmark.hashing-threads", Runtime.getRuntime().availableProcessors());
+	private static final double MAX_ERROR_RATIO = Double.parseDouble(System.getProperty("benchmark.max-error-ratio", "0.01"));
+
+	@Test
+	void compareThreadModels() throws Exception {
+		assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21 (build with -Pjava21)");
+
+		List<String> report = new ArrayList<>();
+		for (boolean virtualThreads : new boolean[] {false, true}) {
+			String database = "lets-play-benchmark-" + System.currentTimeMillis();
+			try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LetsPlayApplication.class)
+					.properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads,
+							"spring.data.mongodb.uri=" + MONGODB_URI + "/" + database,
+							"security.password-hashing.bcrypt-strength=" + BCRYPT_STRENGTH,
+							"security.password-hashing.threads=" + HASHING_THREADS,
+							"security.password-hashing.queue-capacity=" + CLIENTS,
+							"security.password-hashing.timeout-ms=" + WARMUP.plus(MEASUREMENT).toMillis())
+					.run()) {
+				MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+				try {
+					int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+					String email = seed(context);
+					String model = virtualThreads ? "virtual" : "platform";
+
+					String loginBody = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+					HttpRequest products = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products?size=20")).GET().build();
+					HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+							.header("Content-Type", "application/json")
+							.POST(HttpRequest.BodyPublishers.ofString(loginBody))
+							.build();
+
+					report.add(model + " GET /api/products     " + run(products));
+					report.add(model + " POST /api/auth/login  " + run(login));
+					if (virtualThreads) {
+						long pinned = context.getBean(VirtualThreadPinningMonitor.class).getPinnedEventCount();
+						report.add(model + " pinned events: " + pinned + " (see the WARN logs of VirtualThreadPinningMonitor)");
+					}
+				} finally {
+					mongoTemplate.getDb().drop();
+				}
+			}
+		}
+		System.out.println("=== Thread model benchmark (" + CLIENTS + " concurrent clients, " + MEASUREMENT.toSeconds() + " s) ===");
+		report.forEach(System.out::println);
+	}
+
+	/**
+	 * Creates a user to log in with and a page worth of products, and returns the user's email.
+	 */
+	private String seed(ConfigurableApplicationContext context) {
+		User user = new User();
+		user.setName("Benchmark");
+		user.setEmail("benchmark-" + UUID.randomUUID() + "@example.com");
+		user.setPassword(PASSWORD);
+		user.setRole("USER");
+		User saved = context.getBean(UserService.class).createUser(user);
+
+		List<Product> products = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Product product = new Product();
+			product.setName("Benchmark product " + i);
+			product.setDescription("A product created by the thread model benchmark.");
+			product.setPrice(1.0 + i);
+			product.setUserId(saved.getId());
+			products.add(product);
+		}
+		context.getBean(ProductRepository.class).saveAll(products);
+		return saved.getEmail();
+	}
+
+	/**
+	 * Sends the request from CLIENTS concurrent clients (closed model), first for the warmup and then for the measurement.
+	 * Only the successful responses are counted in the latencies and the throughput.
+	 * @return throughput and latency percentiles of the measurement phase.
+	 */
+	private String run(HttpRequest request) throws InterruptedException {
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+		long measureFrom = System.nanoTime() + WARMUP.toNanos();
+		long end = measureFrom + MEASUREMENT.toNanos();
+		// Latencies in microseconds of the successful requests, recorded concurrently by all the clients.
+		Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+		AtomicLong errors = new AtomicLong();
+
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+		for (int c = 0; c < CLIENTS; c++) {
+			clients.execute(() -> {
+				while (System.nanoTime() < end) {
+					long start = System.nanoTime();
+					boolean ok;
+					try {
+						ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+					} catch (Exception e) {
+						ok = false;
+					}
+					if (start < measureFrom) {
+						continue;
+					}
+					if (ok) {
+						latencies.recordValue(Math.min((System.nanoTime() - start) / 1000, HIGHEST_TRACKABLE_MICROS));
+					} else {
+						errors.incrementAndGet();
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		assertTrue(clients.awaitTermination(WARMUP.plus(MEASUREMENT).toSeconds() + 60, TimeUnit.SECONDS));
+
+		long requests = latencies.getTotalCount() + errors.get();
+		assertTrue(errors.get() <= MAX_ERROR_RATIO * requests,
+				() -> errors.get() + " of " + requests + " requests to " + request.uri() + " failed");
+		double throughput = latencies.getTotalCount() / (double) MEASUREMENT.toSeconds();
+		return String.format("throughput %8.1f req/s  p50 %7.2f ms  p99 %8.2f ms  errors %d",
+				throughput, latencies.getValueAtPercentile(50) / 1000.0, latencies.getValueAtPercentile(99) / 1000.0, errors.get());
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.letsplay.config;
+
+import com.letsplay.dto.ProductPage;
+import com.letsplay.model.Product;
+import com.letsplay.repository.ProductRepository;
+import com.letsplay.repository.UserRepository;
+import com.letsplay.service.ProductService;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Runs the reads of the repositories and services, and fails if the plan the server chose for any of them
+ * is a collection scan. The find commands the application actually sends are captured by a CommandListener
+ * and explained as they are. The indexes are created at startup by MongoIndexInitializer.
+ * When a new query is added to a repository or service, add it here.
+ */
+@SpringBootTest
+class MongoIndexQueryPlanTests {
+
+	/**
+	 * The find commands sent by the application, without the fields the driver adds to them.
+	 */
+	private static final List<BsonDocument> FINDS = new CopyOnWriteArrayList<>();
+
+	@TestConfiguration
+	static class CaptureFinds {
+
+		@Bean
+		MongoClientSettingsBuilderCustomizer captureFinds() {
+			return builder -> builder.addCommandListener(new CommandListener() {
+				@Override
+				public void commandStarted(CommandStartedEvent event) {
+					if (!"find".equals(event.getCommandName())) {
+						return;
+					}
+					BsonDocument command = new BsonDocument();
+					for (Map.Entry<String, BsonValue> field : event.getCommand().entrySet()) {
+						if (!field.getKey().startsWith("$") && !field.getKey().equals("lsid")) {
+							command.put(field.getKey(), field.getValue());
+						}
+					}
+					FINDS.add(command);
+				}
+			});
+		}
+	}
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	private final List<Product> products = new ArrayList<>();
+
+	@AfterEach
+	void removeProducts() {
+		productRepository.deleteAll(products);
+	}
+
+	@Test
+	void userFindByEmailUsesIndex() {
+		assertNoCollectionScan(() -> userRepository.findByEmail("plan-" + UUID.randomUUID() + "@example.com"));
+	}
+
+	@Test
+	void productKeysetPageUsesIndex() {
+		seedProducts(new ObjectId().toHexString());
+		ProductPage first = productService.getProducts(null, 1, null);
+		assertNotNull(first.getNextCursor(), "The first page must have a next page");
+		assertNoCollectionScan(() -> productService.getProducts(first.getNextCursor(), 1, null));
+	}
+
+	@Test
+	void productFindByUserIdUsesIndex() {
+		assertNoCollectionScan(() -> productService.getProductsByUserId(new ObjectId().toHexString()));
+	}
+
+	/**
+	 * Runs a query, and checks the plan of every find command it sent.
+	 */
+	private void assertNoCollectionScan(Runnable query) {
+		FINDS.clear();
+		query.run();
+		List<BsonDocument> finds = new ArrayList<>(FINDS);
+		assertFalse(finds.isEmpty(), "The query sent no find command");
+		for (BsonDocument find : finds) {
+			Document explain = mongoTemplate.getDb().runCommand(new BsonDocument("explain", find)
+					.append("verbosity", new BsonString("queryPlanner")));
+			Document plan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+			assertFalse(containsStage(plan, "COLLSCAN"),
+					() -> "Query " + find.toJson() + " uses a collection scan: " + plan.toJson());
+		}
+	}
+
+	/**
+	 * Walks the plan tree (inputStage, inputStages and, on newer servers, queryPlan) looking for a stage.
+	 */
+	private boolean containsStage(Object node, String stage) {
+		if (node instanceof Document document) {
+			if (stage.equals(document.getString("stage"))) {
+				return true;
+			}
+			return document.values().stream().anyMatch(value -> containsStage(value, stage));
+		}
+		if (node instanceof List<?> list) {
+			return list.stream().anyMatch(value -> containsStage(value, stage));
+		}
+		return false;
+	}
+
+	/**
+	 * This is a helper method that creates two products, so that the first page has a next page.
+	 */
+	private void seedProducts(String userId) {
+		for (int i = 0; i < 2; i++) {
+			Product product = new Product();
+			product.setName("Plan product " + i);
+			product.setDescription("A product created by the query plan tests.");
+			product.setPrice(1.0 + i);
+			product.setUserId(userId);
+			products.add(product);
+		}
+		productRepository.saveAll(products);
+	}
+
+}
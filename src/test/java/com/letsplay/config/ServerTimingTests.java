@@ -0,0 +1,35 @@
+package com.letsplay.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that, when enabled, responses carry a Server-Timing header with the MongoDB and JSON phases.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "server-timing.enabled=true")
+class ServerTimingTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void addsServerTimingHeader() {
+		ResponseEntity<String> response = restTemplate.getForEntity("/api/products", String.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+
+		String header = response.getHeaders().getFirst("Server-Timing");
+		assertNotNull(header, "Missing Server-Timing header");
+		assertTrue(header.contains("db;dur="), header);
+		assertTrue(header.contains("json;dur="), header);
+		assertTrue(header.contains("total;dur="), header);
+	}
+
+}
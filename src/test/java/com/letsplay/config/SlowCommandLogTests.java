@@ -0,0 +1,57 @@
+package com.letsplay.config;
+
+import com.letsplay.dto.SlowCommand;
+import com.letsplay.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that slow repository queries are recorded with a redacted shape and an explained plan.
+ * Every command counts as slow here, and every slow command is explained.
+ */
+@SpringBootTest(properties = {
+		"mongodb.slow-commands.threshold-millis=0",
+		"mongodb.slow-commands.explain-sample-rate=1.0"
+})
+class SlowCommandLogTests {
+
+	@Autowired
+	private SlowCommandLog slowCommandLog;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void recordsRedactedShapeAndPlan() throws InterruptedException {
+		String email = "slow-" + UUID.randomUUID() + "@example.com";
+		userRepository.findByEmail(email);
+
+		SlowCommand slowCommand = await(() -> slowCommandLog.recent().stream()
+				.filter(command -> command.getCommand().equals("find") && command.getCollection().equals("users")
+						&& command.getShape().contains("\"email\": \"?\"") && command.getPlan() != null)
+				.findFirst()
+				.orElse(null));
+		assertFalse(slowCommand.getShape().contains(email), "The shape must not contain the email");
+		assertTrue(slowCommand.getPlan().contains("IXSCAN"), () -> "Unexpected plan " + slowCommand.getPlan());
+	}
+
+	private static <T> T await(Supplier<T> value) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		T result;
+		while ((result = value.get()) == null) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the slow command");
+			Thread.sleep(20);
+		}
+		assertNotNull(result);
+		return result;
+	}
+
+}
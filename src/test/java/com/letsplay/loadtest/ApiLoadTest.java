@@ -0,0 +1,154 @@
+package com.letsplay.loadtest;
+
+import com.letsplay.LetsPlayApplication;
+import com.letsplay.model.Product;
+import com.letsplay.service.DatasetGenerator;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives open-model traffic at a fixed arrival rate across the main endpoints (product listing, product by ID,
+ * login and sign-up), and fails if an endpoint misses its p99 latency or throughput SLO.
+ * <p>
+ * The application is started in-process on a random port, against a fresh database on the MongoDB of
+ * loadtest.mongodb-uri (the local mongod by default), seeded with the DatasetGenerator, and dropped afterwards.
+ * The settings and SLOs are in load-test.properties. The latency distributions are written to target/load-test.
+ * Run it with: mvn -Pload-test test
+ */
+@Tag("load")
+class ApiLoadTest {
+
+	private static final String PASSWORD = "load-test-password";
+	private static final int PRODUCT_ID_SAMPLE = 10_000;
+	private static final Path REPORT_DIRECTORY = Paths.get("target", "load-test");
+
+	private final Properties settings = loadSettings();
+
+	@Test
+	void meetsLatencyAndThroughputSlos() throws Exception {
+		String database = "lets-play-loadtest-" + System.currentTimeMillis();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LetsPlayApplication.class)
+				.properties("server.port=0",
+						"spring.data.mongodb.uri=" + setting("loadtest.mongodb-uri") + "/" + database,
+						"security.password-hashing.bcrypt-strength=" + setting("loadtest.bcrypt-strength"),
+						"seed.users=" + setting("loadtest.seed.users"),
+						"seed.products-per-user=" + setting("loadtest.seed.products-per-user"))
+				.run()) {
+			MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+			try {
+				int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+				List<String> productIds = new ArrayList<>();
+				DatasetGenerator generator = seed(context, mongoTemplate, productIds);
+
+				String base = "http://localhost:" + port;
+				OpenModelLoad load = new OpenModelLoad(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build(), List.of(
+						endpoint("products-list", 200, () -> HttpRequest.newBuilder(URI.create(base + "/api/products?size=20")).GET().build()),
+						endpoint("product-by-id", 200, () -> HttpRequest.newBuilder(URI.create(base + "/api/products/" + random(productIds))).GET().build()),
+						endpoint("login", 200, () -> {
+							long user = ThreadLocalRandom.current().nextLong(generator.getUsers());
+							return json(base + "/api/auth/login",
+									"{\"email\":\"" + generator.email(user) + "\",\"password\":\"" + generator.password(user) + "\"}");
+						}),
+						endpoint("sign-up", 200, () -> json(base + "/api/users",
+								"{\"name\":\"Load test\",\"email\":\"load-" + UUID.randomUUID() + "@example.com\",\"password\":\"" + PASSWORD + "\",\"role\":\"USER\"}"))));
+
+				Duration measurement = Duration.ofSeconds(Long.parseLong(setting("loadtest.measurement-seconds")));
+				double rate = Double.parseDouble(setting("loadtest.rate-per-second"));
+				load.run(rate, Duration.ofSeconds(Long.parseLong(setting("loadtest.warmup-seconds"))), measurement);
+
+				System.out.println("=== API load test (" + rate + " req/s offered, " + measurement.toSeconds() + " s) ===");
+				List<Executable> checks = new ArrayList<>();
+				for (OpenModelLoad.Endpoint endpoint : load.endpoints()) {
+					System.out.println(endpoint.summary(measurement));
+					endpoint.writeHistogram(REPORT_DIRECTORY);
+					checks.add(() -> assertTrue(endpoint.p99Millis() <= endpoint.p99MillisSlo,
+							() -> endpoint.name + " p99 " + endpoint.p99Millis() + " ms is above the SLO of " + endpoint.p99MillisSlo + " ms"));
+					checks.add(() -> assertTrue(endpoint.throughput(measurement) >= endpoint.minThroughputRatio * endpoint.offeredRate(measurement),
+							() -> endpoint.name + " throughput " + endpoint.throughput(measurement) + " req/s is below "
+									+ endpoint.minThroughputRatio + " of the offered " + endpoint.offeredRate(measurement) + " req/s"));
+				}
+				System.out.println("Latency distributions written to " + REPORT_DIRECTORY.toAbsolutePath());
+				assertAll(checks);
+			} finally {
+				mongoTemplate.getDb().drop();
+			}
+		}
+	}
+
+	/**
+	 * Seeds the users and products with the DatasetGenerator, and samples the IDs of the products to read.
+	 */
+	private DatasetGenerator seed(ConfigurableApplicationContext context, MongoTemplate mongoTemplate,
+								  List<String> productIds) throws InterruptedException {
+		DatasetGenerator generator = context.getBean(DatasetGenerator.class);
+		generator.generate();
+		Aggregation sample = Aggregation.newAggregation(Aggregation.sample(PRODUCT_ID_SAMPLE), Aggregation.project("_id"));
+		mongoTemplate.aggregate(sample, Product.class, Document.class)
+				.forEach(document -> productIds.add(document.getObjectId("_id").toHexString()));
+		return generator;
+	}
+
+	private OpenModelLoad.Endpoint endpoint(String name, int expectedStatus, Supplier<HttpRequest> requests) {
+		return new OpenModelLoad.Endpoint(name,
+				Double.parseDouble(setting("loadtest." + name + ".weight")),
+				requests,
+				expectedStatus,
+				Double.parseDouble(setting("loadtest." + name + ".p99-ms")),
+				Double.parseDouble(setting("loadtest." + name + ".min-throughput-ratio")));
+	}
+
+	private static HttpRequest json(String uri, String body) {
+		return HttpRequest.newBuilder(URI.create(uri))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private static String random(List<String> values) {
+		return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+	}
+
+	/**
+	 * Reads a setting, from the system properties first and from load-test.properties otherwise.
+	 */
+	private String setting(String key) {
+		return System.getProperty(key, settings.getProperty(key));
+	}
+
+	private static Properties loadSettings() {
+		Properties properties = new Properties();
+		try (InputStream in = ApiLoadTest.class.getResourceAsStream("/load-test.properties")) {
+			if (in != null) {
+				properties.load(in);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read load-test.properties", e);
+		}
+		return properties;
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.letsplay.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * An open-model load generator: requests are started at a fixed arrival rate, whether or not the previous ones
+ * have completed, as real users would. The latency of a request is measured from the time it was scheduled to start,
+ * not from the time it was actually sent, so that a stalled server (or client) shows up in the percentiles instead
+ * of silently lowering the load (the "coordinated omission" problem of closed-model tools).
+ * Latencies are recorded in microseconds into one HDR histogram per endpoint.
+ */
+final class OpenModelLoad {
+
+	/**
+	 * The highest latency the histograms can record: one minute, in microseconds.
+	 */
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	/**
+	 * Requests still in flight above this number are not sent, and counted as errors, to protect the client.
+	 */
+	private static final int MAX_IN_FLIGHT = 10_000;
+
+	/**
+	 * One endpoint of the traffic mix, with its share of the traffic, its SLOs and its results.
+	 */
+	static final class Endpoint {
+
+		final String name;
+		final double weight;
+		final Supplier<HttpRequest> requests;
+		final int expectedStatus;
+		final double p99MillisSlo;
+		final double minThroughputRatio;
+
+		final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+		final AtomicLong offered = new AtomicLong();
+		final AtomicLong succeeded = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+
+		Endpoint(String name, double weight, Supplier<HttpRequest> requests, int expectedStatus,
+				 double p99MillisSlo, double minThroughputRatio) {
+			this.name = name;
+			this.weight = weight;
+			this.requests = requests;
+			this.expectedStatus = expectedStatus;
+			this.p99MillisSlo = p99MillisSlo;
+			this.minThroughputRatio = minThroughputRatio;
+		}
+
+		double p99Millis() {
+			return latencies.getValueAtPercentile(99.0) / 1000.0;
+		}
+
+		double throughput(Duration measurement) {
+			return succeeded.get() / (double) measurement.toSeconds();
+		}
+
+		double offeredRate(Duration measurement) {
+			return offered.get() / (double) measurement.toSeconds();
+		}
+
+		String summary(Duration measurement) {
+			return String.format("%-14s offered %7.1f req/s  ok %7.1f req/s  errors %5d  p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  max %8.2f ms",
+					name, offeredRate(measurement), throughput(measurement), failed.get(),
+					latencies.getValueAtPercentile(50.0) / 1000.0, p99Millis(),
+					latencies.getValueAtPercentile(99.9) / 1000.0, latencies.getMaxValue() / 1000.0);
+		}
+
+		/**
+		 * Writes the percentile distribution of the endpoint, in the standard .hgrm format (values in milliseconds),
+		 * which can be plotted with the HdrHistogram plotter.
+		 */
+		void writeHistogram(Path directory) throws IOException {
+			Files.createDirectories(directory);
+			try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+				latencies.outputPercentileDistribution(out, 1000.0);
+			}
+		}
+	}
+
+	private final HttpClient client;
+	private final List<Endpoint> endpoints;
+	private final double totalWeight;
+	private final AtomicLong inFlight = new AtomicLong();
+
+	OpenModelLoad(HttpClient client, List<Endpoint> endpoints) {
+		this.client = client;
+		this.endpoints = endpoints;
+		this.totalWeight = endpoints.stream().mapToDouble(endpoint -> endpoint.weight).sum();
+	}
+
+	List<Endpoint> endpoints() {
+		return endpoints;
+	}
+
+	/**
+	 * Sends the traffic mix at a fixed rate, first for the warmup and then for the measurement.
+	 * Only the requests scheduled during the measurement are recorded. Returns once they have all completed.
+	 * @param ratePerSecond The total arrival rate, across all endpoints.
+	 * @param warmup The duration of the warmup.
+	 * @param measurement The duration of the measurement.
+	 * @throws InterruptedException if interrupted while waiting for the last requests.
+	 */
+	void run(double ratePerSecond, Duration warmup, Duration measurement) throws InterruptedException {
+		SplittableRandom random = new SplittableRandom(42);
+		long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+		long start = System.nanoTime();
+		long measureFrom = start + warmup.toNanos();
+		long end = measureFrom + measurement.toNanos();
+
+		for (long i = 0; ; i++) {
+			long intended = start + i * intervalNanos;
+			if (intended >= end) {
+				break;
+			}
+			long wait = intended - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			// If the generator itself fell behind, the request is sent late, but still timed from its intended start.
+			boolean measured = intended >= measureFrom;
+			send(pick(random), intended, measured);
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private Endpoint pick(SplittableRandom random) {
+		double point = random.nextDouble() * totalWeight;
+		for (Endpoint endpoint : endpoints) {
+			point -= endpoint.weight;
+			if (point < 0) {
+				return endpoint;
+			}
+		}
+		return endpoints.get(endpoints.size() - 1);
+	}
+
+	private void send(Endpoint endpoint, long intended, boolean measured) {
+		if (measured) {
+			endpoint.offered.incrementAndGet();
+		}
+		if (inFlight.get() >= MAX_IN_FLIGHT) {
+			if (measured) {
+				endpoint.failed.incrementAndGet();
+			}
+			return;
+		}
+		inFlight.incrementAndGet();
+		client.sendAsync(endpoint.requests.get(), HttpResponse.BodyHandlers.discarding())
+				.whenComplete((response, error) -> {
+					long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+					inFlight.decrementAndGet();
+					if (!measured) {
+						return;
+					}
+					if (error == null && response.statusCode() == endpoint.expectedStatus) {
+						endpoint.succeeded.incrementAndGet();
+						endpoint.latencies.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+					} else {
+						endpoint.failed.incrementAndGet();
+					}
+				});
+	}
+}
@@ -0,0 +1,72 @@
+package com.letsplay.service;
+
+import com.letsplay.security.TokenRevocationList;
+import com.letsplay.security.TokenVersionRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the events another node appends to the invalidation bus are applied to the local caches.
+ * The other node is simulated by inserting its events directly into the capped collection.
+ * Capped collections and tailable cursors work on a standalone mongod, so this test runs against the local one.
+ */
+@SpringBootTest
+class InvalidationBusTests {
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private TokenVersionRegistry tokenVersionRegistry;
+
+	@Autowired
+	private TokenRevocationList tokenRevocationList;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Test
+	void appliesUserChangesOfOtherNodes() throws InterruptedException {
+		String email = "bus-" + UUID.randomUUID() + "@example.com";
+		insertForeignEvent(new Document("type", "USER_CHANGED").append("key", email).append("tokenVersion", 3L));
+		await(() -> tokenVersionRegistry.isStale(email, 2));
+	}
+
+	@Test
+	void appliesRevocationsOfOtherNodes() throws InterruptedException {
+		String tokenId = UUID.randomUUID().toString();
+		Date expiresAt = new Date(System.currentTimeMillis() + 60_000);
+		insertForeignEvent(new Document("type", "TOKEN_REVOKED").append("key", tokenId).append("expiresAt", expiresAt));
+		await(() -> tokenRevocationList.isRevoked(tokenId));
+	}
+
+	@Test
+	void appliesProductChangesOfOtherNodes() throws InterruptedException {
+		String etag = catalogVersion.catalogEtag();
+		insertForeignEvent(new Document("type", "PRODUCT_CHANGED").append("key", "some-product"));
+		await(() -> !etag.equals(catalogVersion.catalogEtag()));
+	}
+
+	private void insertForeignEvent(Document event) {
+		event.append("origin", "another-node").append("at", new Date());
+		mongoTemplate.getCollection(InvalidationBus.COLLECTION).insertOne(event);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the invalidation event");
+			Thread.sleep(20);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.letsplay.service;
+
+import com.letsplay.model.Product;
+import com.letsplay.repository.ProductRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the catalog cache follows the writes made to the products collection.
+ * Change streams need a replica set, so this test is tagged replica-set and excluded by default.
+ * Start a local single-node replica set (mongod --replSet rs0, then rs.initiate() in mongosh) and run:
+ * mvn test -Dgroups=replica-set -DexcludedGroups=
+ */
+@Tag("replica-set")
+@SpringBootTest(properties = {
+		"spring.data.mongodb.uri=mongodb://localhost:27017/lets-play-test?replicaSet=rs0",
+		"products.near-cache.enabled=true",
+		"products.near-cache.snapshot-file=target/products-cache-test.snapshot"
+})
+class ProductCatalogCacheTests {
+
+	@Autowired
+	private ProductCatalogCache productCatalogCache;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Test
+	void followsInsertsUpdatesAndDeletes() throws InterruptedException {
+		await(productCatalogCache::isReady);
+
+		Product product = new Product();
+		product.setName("Cached product");
+		product.setPrice(10.0);
+		product.setUserId("owner-1");
+		Product saved = productRepository.save(product);
+		await(() -> productCatalogCache.findById(saved.getId()).isPresent());
+		assertTrue(productCatalogCache.findByUserId("owner-1").stream().anyMatch(p -> p.getId().equals(saved.getId())));
+
+		saved.setPrice(12.5);
+		saved.setUserId("owner-2");
+		productRepository.save(saved);
+		await(() -> productCatalogCache.findById(saved.getId()).map(p -> p.getPrice() == 12.5).orElse(false));
+		assertEquals("owner-2", productCatalogCache.findById(saved.getId()).get().getUserId());
+		assertTrue(productCatalogCache.findByUserId("owner-1").stream().noneMatch(p -> p.getId().equals(saved.getId())));
+
+		productRepository.deleteById(saved.getId());
+		await(() -> productCatalogCache.findById(saved.getId()).isEmpty());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the catalog cache");
+			Thread.sleep(50);
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.letsplay.service;
+
+import com.letsplay.dto.BulkItemResult;
+import com.letsplay.dto.ImportReport;
+import com.letsplay.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a malformed record is reported as INVALID without aborting the rest of the import.
+ */
+@SpringBootTest(properties = "security.password-hashing.bcrypt-strength=4")
+class UserImportServiceTests {
+
+	private final String prefix = "import-" + UUID.randomUUID() + "-";
+
+	@Autowired
+	private UserImportService userImportService;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@AfterEach
+	void removeImportedUsers() {
+		mongoTemplate.remove(new Query(Criteria.where("email").regex("^" + prefix)), User.class);
+	}
+
+	@Test
+	void reportsBadRecordAndImportsTheOthers() throws Exception {
+		String input = String.join("\n",
+				"{\"name\":\"First\",\"email\":\"" + prefix + "1@example.com\",\"password\":\"secret\"}",
+				"{\"name\":\"Bad\",\"email\":\"" + prefix + "2@example.com\",\"password\":\"secret\",\"tokenVersion\":\"not-a-number\"}",
+				"{\"name\":\"Third\",\"email\":\"" + prefix + "3@example.com\",\"password\":\"secret\"}");
+
+		ImportReport report = userImportService.importUsers(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(2L, report.getCounts().get("CREATED"));
+		assertEquals(1L, report.getCounts().get("INVALID"));
+		assertEquals(1, report.getFailures().size());
+		BulkItemResult failure = report.getFailures().get(0);
+		assertEquals(1, failure.getIndex());
+		assertEquals("INVALID", failure.getStatus());
+		assertEquals(2L, mongoTemplate.count(new Query(Criteria.where("email").regex("^" + prefix)), User.class));
+	}
+
+}
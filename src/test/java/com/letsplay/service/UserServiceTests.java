@@ -0,0 +1,67 @@
+package com.letsplay.service;
+
+import com.letsplay.model.User;
+import com.letsplay.security.TokenVersionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that changing the credentials of a user increments its token version, so that older tokens go stale.
+ */
+@SpringBootTest(properties = "security.password-hashing.bcrypt-strength=4")
+class UserServiceTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TokenVersionRegistry tokenVersionRegistry;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	private User user;
+
+	@AfterEach
+	void removeUser() {
+		if (user != null) {
+			mongoTemplate.remove(user);
+		}
+	}
+
+	@Test
+	void credentialChangesBumpTheTokenVersion() {
+		User newUser = new User();
+		newUser.setName("Credentials");
+		newUser.setEmail("credentials-" + UUID.randomUUID() + "@example.com");
+		newUser.setPassword("first-password");
+		newUser.setRole("USER");
+		user = userService.createUser(newUser);
+		assertFalse(tokenVersionRegistry.isStale(user.getEmail(), 0));
+
+		User promoted = userService.updateCredentials(user.getEmail(), null, "admin");
+		assertEquals(1, promoted.getTokenVersion());
+		assertEquals("ADMIN", promoted.getRole());
+		assertTrue(tokenVersionRegistry.isStale(user.getEmail(), 0));
+
+		User changed = userService.updateCredentials(user.getEmail(), "second-password", null);
+		assertEquals(2, changed.getTokenVersion());
+		assertTrue(passwordEncoder.matches("second-password", changed.getPassword()));
+		assertTrue(tokenVersionRegistry.isStale(user.getEmail(), 1));
+		assertFalse(tokenVersionRegistry.isStale(user.getEmail(), 2));
+	}
+
+}